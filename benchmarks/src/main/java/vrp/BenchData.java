@@ -0,0 +1,43 @@
+package vrp;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Deterministic instances for the benchmarks
+final class BenchData {
+
+    private BenchData() {}
+
+    // Same distribution as MasUI.randomItems (300 x 200 area, 60-120 wide time windows)
+    static List<Item> randomItems(int n, long seed) {
+        Random rnd = new Random(seed);
+        List<Item> list = new ArrayList<>(n);
+        for (int i = 1; i <= n; i++) {
+            double x = rnd.nextDouble() * 300.0;
+            double y = rnd.nextDouble() * 200.0;
+            int start = rnd.nextInt(200);
+            int end = start + 60 + rnd.nextInt(60);
+            list.add(new Item("i" + i, x, y, 1, start, end));
+        }
+        return list;
+    }
+
+    // Writes items in the 6-column CSV form to a temp file that is deleted on exit
+    static Path writeCsv(List<Item> items) throws IOException {
+        Path p = Files.createTempFile("vrp-bench-", ".csv");
+        p.toFile().deleteOnExit();
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(p))) {
+            w.println("# id,x,y,demand,start,end");
+            for (Item it : items) {
+                w.println(it.getId() + "," + it.getX() + "," + it.getY() + "," + it.getDemand()
+                        + "," + it.getStartTime() + "," + it.getEndTime());
+            }
+        }
+        return p;
+    }
+}
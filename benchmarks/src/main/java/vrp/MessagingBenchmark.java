@@ -0,0 +1,80 @@
+package vrp;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Payload cost per codec: the route the MRA sends to each DA (ManagerAgent.RouteInfo)
+ * and the optimization-result routes sent back to the GUI.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessagingBenchmark {
+
+    @Param({"10", "200", "5000"})
+    public int routeSize;
+
+    @Param({"JSON", "INDEX", "BINARY"})
+    public String codecName;
+
+    private PayloadCodec codec;
+    private ManagerAgent.RouteInfo info;
+    private String encodedInfo;
+    private List<Item> table;
+    private Map<String, int[]> routes;
+    private String encodedRoutes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        codec = PayloadCodec.forName(codecName);
+        table = BenchData.randomItems(routeSize, 42);
+        info = new ManagerAgent.RouteInfo(table, DistanceOracle.of(table).routeLength(identity(routeSize), routeSize));
+        encodedInfo = codec.encodeRoute(info);
+
+        // the same items split over two DAs, as an optimization-result would be
+        int half = routeSize / 2;
+        int[] a = new int[half];
+        int[] b = new int[routeSize - half];
+        for (int i = 0; i < routeSize; i++) {
+            if (i < half) a[i] = i; else b[i - half] = i;
+        }
+        routes = new LinkedHashMap<>();
+        routes.put("DA1", a);
+        routes.put("DA2", b);
+        encodedRoutes = codec.encodeRoutes(routes, table);
+    }
+
+    @Benchmark
+    public String serializeRouteInfo() {
+        return codec.encodeRoute(info);
+    }
+
+    @Benchmark
+    public ManagerAgent.RouteInfo parseRouteInfo() {
+        return codec.decodeRoute(encodedInfo);
+    }
+
+    @Benchmark
+    public String serializeResultRoutes() {
+        return codec.encodeRoutes(routes, table);
+    }
+
+    @Benchmark
+    public Map<String, List<Item>> parseResultRoutes() {
+        return codec.decodeRoutes(encodedRoutes, table);
+    }
+
+    private static int[] identity(int n) {
+        int[] a = new int[n];
+        for (int i = 0; i < n; i++) a[i] = i;
+        return a;
+    }
+}
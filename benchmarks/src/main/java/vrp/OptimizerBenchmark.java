@@ -0,0 +1,101 @@
+package vrp;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GreedyOptimizer / SimpleGAOptimizer end to end, plus the GA's decoder and
+ * the route local search on their own. Fleet settings scale with the instance so that
+ * every size has work to do.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OptimizerBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    public int items;
+
+    // kept small so the larger instances finish in reasonable time
+    @Param({"20"})
+    public int generations;
+
+    public int popSize = 40;
+
+    private List<Item> list;
+    private ItemStore store;
+    private DistanceOracle oracle;
+    private int numDAs;
+    private int capacity;
+    private double dv;
+
+    private int[] chromosome;
+
+    // a separate 200-stop instance routed as one random tour, for the local search alone
+    private RouteLocalSearch routeSearch;
+    private int[] route;
+    private int[] routeScratch;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        list = BenchData.randomItems(items, 42);
+        store = ItemStore.of(list);
+        oracle = DistanceOracle.of(store);
+        numDAs = Math.max(3, items / 50);
+        capacity = Math.max(7, items / numDAs);
+        dv = 5000;
+
+        chromosome = new int[items];
+        for (int i = 0; i < items; i++) chromosome[i] = i;
+        shuffle(chromosome, 1);
+
+        ItemStore routeStore = ItemStore.of(BenchData.randomItems(200, 7));
+        routeSearch = RouteLocalSearch.byStopCount(routeStore, DistanceOracle.of(routeStore));
+        route = new int[routeStore.size()];
+        for (int i = 0; i < route.length; i++) route[i] = i;
+        shuffle(route, 2);
+        routeScratch = new int[route.length];
+    }
+
+    @Benchmark
+    public GreedyOptimizer.Result greedySolve() {
+        return GreedyOptimizer.solve(store, oracle, numDAs, capacity, dv);
+    }
+
+    @Benchmark
+    public SimpleGAOptimizer.Result gaSolve() {
+        return new SimpleGAOptimizer(42).solve(store, oracle, numDAs, capacity, dv, generations, popSize);
+    }
+
+    @Benchmark
+    public SimpleGAOptimizer.Result gaDecode() {
+        return new SimpleGAOptimizer(42).decode(store, oracle, chromosome, numDAs, capacity, dv);
+    }
+
+    @Benchmark
+    public int[] localSearch() {
+        System.arraycopy(route, 0, routeScratch, 0, route.length);
+        routeSearch.improveRoute(routeScratch, routeScratch.length);
+        return routeScratch;
+    }
+
+    @Benchmark
+    public DistanceOracle buildOracle() {
+        return DistanceOracle.of(store);
+    }
+
+    private static void shuffle(int[] a, long seed) {
+        java.util.Random r = new java.util.Random(seed);
+        for (int i = a.length; i > 1; i--) {
+            int j = r.nextInt(i);
+            int t = a[i - 1];
+            a[i - 1] = a[j];
+            a[j] = t;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package vrp;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Loading the same items through the regex parser, the mmap parser and .vrpbin. */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int items;
+
+    private Path csv;
+    private Path bin;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        List<Item> list = BenchData.randomItems(items, 42);
+        csv = BenchData.writeCsv(list);
+        bin = Files.createTempFile("vrp-bench-", VrpBin.EXTENSION);
+        bin.toFile().deleteOnExit();
+        VrpBin.write(ItemStore.of(list), bin.toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csv);
+        Files.deleteIfExists(bin);
+    }
+
+    @Benchmark
+    public List<Item> parseItems() throws Exception {
+        return ItemsParser.parseItems(csv.toString());
+    }
+
+    @Benchmark
+    public ItemStore parseStore() throws IOException {
+        return ItemsParser.parseStore(csv.toString());
+    }
+
+    @Benchmark
+    public ItemStore loadVrpBin() throws IOException {
+        return VrpBin.load(bin.toString());
+    }
+}
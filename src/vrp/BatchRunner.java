@@ -0,0 +1,321 @@
+package vrp;
+
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Headless runs of the optimizers, for scripts, cron jobs and server nodes:
+ *
+ *   java -cp intelligent-systems.jar:gson.jar vrp.BatchRunner --technique GA --seed 7 items.csv
+ *
+ * Every file (CSV via ItemsParser, or .vrpbin) is solved once per seed; each run
+ * gives one row of timing and quality metrics, as CSV or JSON. Only the solver
+ * classes are used, never MasUI or the agents, so neither AWT nor JADE is loaded.
+ */
+public final class BatchRunner {
+
+    private static final String USAGE = String.join("\n",
+            "usage: java vrp.BatchRunner [options] <items file>...",
+            "  --technique GREEDY|GA|CLUSTER|CNET   (default GREEDY)",
+            "  --vehicles N          number of vehicles (default 3)",
+            "  --capacity C          demand per vehicle (default 10)",
+            "  --max-distance D      route length limit per vehicle (default 300)",
+            "  --seed S              first seed (default 1)",
+            "  --runs R              seeds S..S+R-1 per file (default 1)",
+            "  --generations G       GA generation cap (default 200)",
+            "  --population P        GA population (default 40)",
+            "  --time-budget-ms T    GA wall-clock budget, 0 = none (default 0)",
+            "  --stall S             GA stall limit in generations, 0 = none (default 0)",
+            "  --batch B             CNET items per announcement (default " + ContractNet.DEFAULT_BATCH + ")",
+            "  --format csv|json     output format (default csv)",
+            "  --out FILE            metrics (and, in JSON, routes) to FILE instead of stdout",
+            "  --routes FILE         CSV only: routes as run,file,seed,vehicle,stop,item rows");
+
+    /** Parameters of a batch; public fields so other tools can build one directly. */
+    public static final class Options {
+        public String technique = "GREEDY";
+        public int vehicles = 3;
+        public int capacity = 10;
+        public double maxDistance = 300;
+        public long seed = 1;
+        public int runs = 1;
+        public int generations = 200;
+        public int population = 40;
+        public long timeBudgetMs = 0;
+        public int stallGenerations = 0;
+        public int batch = ContractNet.DEFAULT_BATCH;
+        public String format = "csv";
+        public String out;
+        public String routes;
+        public final List<String> files = new ArrayList<>();
+    }
+
+    /** One solve: what ran, how long each phase took, and how good the result is. */
+    public static final class Run {
+        public int run;
+        public String file;
+        public String technique;
+        public long seed;
+        public int items;
+        public int vehicles;
+        public int capacity;
+        public double maxDistance;
+        public int delivered;
+        public double deliveryRate;
+        public double totalDistance;
+        public double distancePerItem;
+        public int vehiclesUsed;
+        public boolean feasible;
+        public long parseMs;
+        public long matrixMs;
+        public long solveMs;
+        public int generations;        // GA only
+        public String stopReason;      // GA only
+        public Map<String, List<String>> routes;
+    }
+
+    private BatchRunner() {}
+
+    public static void main(String[] args) {
+        Options o;
+        try {
+            o = parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        try {
+            List<Run> runs = runAll(o);
+            write(o, runs);
+        } catch (Exception e) {
+            System.err.println("BatchRunner: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // --- Arguments ---
+
+    static Options parse(String[] args) {
+        Options o = new Options();
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            if (!a.startsWith("--")) {
+                o.files.add(a);
+                continue;
+            }
+            String key = a;
+            String val;
+            int eq = a.indexOf('=');
+            if (eq > 0) {
+                key = a.substring(0, eq);
+                val = a.substring(eq + 1);
+            } else if (i + 1 < args.length) {
+                val = args[++i];
+            } else {
+                throw new IllegalArgumentException("Missing value for " + a);
+            }
+            try {
+                switch (key) {
+                    case "--technique": o.technique = val.trim().toUpperCase(); break;
+                    case "--vehicles": o.vehicles = Integer.parseInt(val.trim()); break;
+                    case "--capacity": o.capacity = Integer.parseInt(val.trim()); break;
+                    case "--max-distance": o.maxDistance = Double.parseDouble(val.trim()); break;
+                    case "--seed": o.seed = Long.parseLong(val.trim()); break;
+                    case "--runs": o.runs = Integer.parseInt(val.trim()); break;
+                    case "--generations": o.generations = Integer.parseInt(val.trim()); break;
+                    case "--population": o.population = Integer.parseInt(val.trim()); break;
+                    case "--time-budget-ms": o.timeBudgetMs = Long.parseLong(val.trim()); break;
+                    case "--stall": o.stallGenerations = Integer.parseInt(val.trim()); break;
+                    case "--batch": o.batch = Integer.parseInt(val.trim()); break;
+                    case "--format": o.format = val.trim().toLowerCase(); break;
+                    case "--out": o.out = val; break;
+                    case "--routes": o.routes = val; break;
+                    default: throw new IllegalArgumentException("Unknown option " + key);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad number for " + key + ": " + val);
+            }
+        }
+
+        if (o.files.isEmpty()) throw new IllegalArgumentException("No items file given.");
+        switch (o.technique) {
+            case "GREEDY": case "GA": case "CLUSTER": case "CNET": break;
+            case "ISLAND": throw new IllegalArgumentException("ISLAND runs on DeliveryAgents; use GA headless.");
+            default: throw new IllegalArgumentException("Unknown technique " + o.technique);
+        }
+        if (!"csv".equals(o.format) && !"json".equals(o.format)) {
+            throw new IllegalArgumentException("Unknown format " + o.format);
+        }
+        if (o.vehicles < 1 || o.runs < 1) throw new IllegalArgumentException("--vehicles and --runs must be >= 1");
+        return o;
+    }
+
+    // --- Solving ---
+
+    static List<Run> runAll(Options o) throws IOException {
+        List<Run> runs = new ArrayList<>();
+        for (String file : o.files) {
+            long t0 = System.nanoTime();
+            ItemStore store = VrpBin.isVrpBin(file) ? VrpBin.load(file) : ItemsParser.parseStore(file);
+            long parseMs = ms(t0);
+
+            t0 = System.nanoTime();
+            DistanceOracle oracle = DistanceOracle.of(store);
+            long matrixMs = ms(t0);
+
+            for (int r = 0; r < o.runs; r++) {
+                Run run = solve(o, store, oracle, o.seed + r);
+                run.run = runs.size() + 1;
+                run.file = file;
+                run.parseMs = parseMs;
+                run.matrixMs = matrixMs;
+                runs.add(run);
+                System.err.printf("%s seed=%d %s: delivered %d/%d, distance %.1f, %d ms%n",
+                        file, run.seed, run.technique, run.delivered, run.items, run.totalDistance, run.solveMs);
+            }
+        }
+        return runs;
+    }
+
+    static Run solve(Options o, ItemStore store, DistanceOracle oracle, long seed) {
+        Run run = new Run();
+        run.technique = o.technique;
+        run.seed = seed;
+        run.items = store.size();
+        run.vehicles = o.vehicles;
+        run.capacity = o.capacity;
+        run.maxDistance = o.maxDistance;
+
+        Map<String, int[]> routes;
+        long t0 = System.nanoTime();
+        switch (o.technique) {
+            case "GA": {
+                SimpleGAOptimizer.Result r = new SimpleGAOptimizer(seed, ForkJoinPool.commonPool()).solve(
+                        store, oracle, o.vehicles, o.capacity, o.maxDistance,
+                        o.generations, o.population, o.timeBudgetMs, o.stallGenerations);
+                routes = new LinkedHashMap<>();
+                for (int v = 0; v < r.routeIndices.size(); v++) routes.put("DA" + (v + 1), r.routeIndices.get(v));
+                run.generations = r.generations;
+                run.stopReason = String.valueOf(r.stopReason);
+                break;
+            }
+            case "CLUSTER":
+                routes = ClusterSolver.solve(store, oracle, o.vehicles, o.capacity, o.maxDistance, seed).routeIndices;
+                break;
+            case "CNET":
+                routes = ContractNet.solve(store, oracle, o.vehicles, o.capacity, o.maxDistance, o.batch).routeIndices;
+                break;
+            default:
+                routes = GreedyOptimizer.solve(store, oracle, o.vehicles, o.capacity, o.maxDistance).routeIndices;
+                break;
+        }
+        run.solveMs = ms(t0);
+
+        // metrics recomputed from the routes, the same way for every technique
+        run.routes = new LinkedHashMap<>();
+        boolean[] seen = new boolean[store.size()];
+        run.feasible = true;
+        for (Map.Entry<String, int[]> e : routes.entrySet()) {
+            int[] stops = e.getValue();
+            List<String> ids = new ArrayList<>(stops.length);
+            double t = 0.0;
+            int prev = DistanceOracle.DEPOT;
+            int load = 0;
+            for (int idx : stops) {
+                ids.add(store.id(idx));
+                if (seen[idx]) run.feasible = false;
+                seen[idx] = true;
+                t = Math.max(t + oracle.dist(prev, idx), store.startTime(idx));
+                if (t > store.endTime(idx)) run.feasible = false;
+                load += store.demand(idx);
+                prev = idx;
+            }
+            double length = oracle.routeLength(stops, stops.length);
+            if (load > o.capacity || length > o.maxDistance + 1e-9) run.feasible = false;
+
+            run.routes.put(e.getKey(), ids);
+            run.delivered += stops.length;
+            run.totalDistance += length;
+            if (stops.length > 0) run.vehiclesUsed++;
+        }
+        run.deliveryRate = (store.size() == 0) ? 0.0 : (double) run.delivered / store.size();
+        run.distancePerItem = (run.delivered == 0) ? 0.0 : run.totalDistance / run.delivered;
+        return run;
+    }
+
+    private static long ms(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    // --- Output ---
+
+    static void write(Options o, List<Run> runs) throws IOException {
+        try (Writer w = (o.out == null)
+                ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                : Files.newBufferedWriter(Paths.get(o.out), StandardCharsets.UTF_8)) {
+            PrintWriter pw = new PrintWriter(w);
+            if ("json".equals(o.format)) {
+                new GsonBuilder().setPrettyPrinting().create().toJson(runs, pw);
+                pw.println();
+            } else {
+                writeCsv(pw, runs);
+            }
+            pw.flush();
+        }
+
+        if ("csv".equals(o.format) && o.routes != null) {
+            try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(Paths.get(o.routes), StandardCharsets.UTF_8))) {
+                pw.println("run,file,seed,vehicle,stop,item");
+                for (Run r : runs) {
+                    for (Map.Entry<String, List<String>> e : r.routes.entrySet()) {
+                        List<String> ids = e.getValue();
+                        for (int s = 0; s < ids.size(); s++) {
+                            pw.println(r.run + "," + csv(r.file) + "," + r.seed + "," + e.getKey() + "," +
+                                    (s + 1) + "," + csv(ids.get(s)));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void writeCsv(PrintWriter pw, List<Run> runs) {
+        pw.println("run,file,technique,seed,items,vehicles,capacity,maxDistance,delivered,deliveryRate," +
+                "totalDistance,distancePerItem,vehiclesUsed,feasible,parseMs,matrixMs,solveMs,generations,stopReason");
+        for (Run r : runs) {
+            pw.println(String.join(",",
+                    String.valueOf(r.run), csv(r.file), r.technique, String.valueOf(r.seed),
+                    String.valueOf(r.items), String.valueOf(r.vehicles), String.valueOf(r.capacity),
+                    String.valueOf(r.maxDistance), String.valueOf(r.delivered),
+                    String.format(Locale.ROOT, "%.4f", r.deliveryRate),
+                    String.format(Locale.ROOT, "%.2f", r.totalDistance),
+                    String.format(Locale.ROOT, "%.3f", r.distancePerItem),
+                    String.valueOf(r.vehiclesUsed), String.valueOf(r.feasible),
+                    String.valueOf(r.parseMs), String.valueOf(r.matrixMs), String.valueOf(r.solveMs),
+                    (r.stopReason == null) ? "" : String.valueOf(r.generations),
+                    (r.stopReason == null) ? "" : r.stopReason));
+        }
+    }
+
+    // quote a field when it holds a separator, quote or line break
+    private static String csv(String s) {
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0) return s;
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,164 @@
+package vrp;
+
+import java.util.Arrays;
+
+/**
+ * One route under construction, with O(len) cheapest feasible insertion of a
+ * further item. Feasibility follows GreedyOptimizer: capacity in item demand,
+ * the route's total length (depot to depot) within dv, and service starting
+ * no later than each item's window end (waiting when early is allowed).
+ *
+ * Time windows are checked from two arrays kept per route: the service start
+ * of every stop going forward, and the latest service start that still keeps
+ * every later stop on time going backward. An insertion between p and q is
+ * feasible when the new item is served in time and q is then reached no later
+ * than its latest start, so each position is tested in O(1).
+ */
+public final class CheapestInsertion {
+
+    private final ItemStore store;
+    private final DistanceOracle oracle;
+    private final int capacity;
+    private final double dv;
+
+    private int[] stops;
+    private int len;
+    private int load;
+    private double length;
+
+    // per position; rebuilt lazily after a change
+    private double[] serviceStart;
+    private double[] latestStart;
+    private boolean stale = true;
+
+    // position found by the last cost() call, for insert()
+    private int lastItem = -1;
+    private int lastPos = -1;
+
+    public CheapestInsertion(ItemStore store, DistanceOracle oracle, int capacity, double dv) {
+        this(store, oracle, capacity, dv, new int[0], 0);
+    }
+
+    /** Starts from an existing route (assumed feasible); the array is copied. */
+    public CheapestInsertion(ItemStore store, DistanceOracle oracle, int capacity, double dv,
+                             int[] route, int len) {
+        this.store = store;
+        this.oracle = oracle;
+        this.capacity = capacity;
+        this.dv = dv;
+        this.stops = Arrays.copyOf(route, Math.max(16, len));
+        this.len = len;
+        for (int i = 0; i < len; i++) load += store.demand(route[i]);
+        this.length = oracle.routeLength(route, len);
+    }
+
+    // --- Route state ---
+
+    public int size() { return len; }
+    public int load() { return load; }
+    public double length() { return length; }
+    public int stop(int pos) { return stops[pos]; }
+
+    public int[] route() {
+        return Arrays.copyOf(stops, len);
+    }
+
+    /**
+     * Extra distance of the cheapest feasible insertion of item idx, or
+     * Double.POSITIVE_INFINITY when no position is feasible.
+     */
+    public double cost(int idx) {
+        lastItem = idx;
+        lastPos = -1;
+        if (load + store.demand(idx) > capacity) return Double.POSITIVE_INFINITY;
+        if (stale) retime();
+
+        double slack = dv - length;
+        double best = Double.POSITIVE_INFINITY;
+        double depart = 0.0;                       // service start at the previous stop (depot: 0)
+        int prev = DistanceOracle.DEPOT;
+        for (int pos = 0; pos <= len; pos++) {
+            int next = (pos < len) ? stops[pos] : DistanceOracle.DEPOT;
+            double delta = oracle.dist(prev, idx) + oracle.dist(idx, next) - oracle.dist(prev, next);
+            if (delta < best && delta <= slack) {
+                double start = Math.max(depart + oracle.dist(prev, idx), store.startTime(idx));
+                boolean onTime = start <= store.endTime(idx)
+                        && (next == DistanceOracle.DEPOT || start + oracle.dist(idx, next) <= latestStart[pos]);
+                if (onTime) {
+                    best = delta;
+                    lastPos = pos;
+                }
+            }
+            if (pos < len) {
+                depart = serviceStart[pos];
+                prev = next;
+            }
+        }
+        return best;
+    }
+
+    /** Inserts idx at its cheapest feasible position; false (route unchanged) if there is none. */
+    public boolean insert(int idx) {
+        if (lastItem != idx) cost(idx);
+        int pos = lastPos;
+        lastItem = -1;
+        if (pos < 0) return false;
+
+        int prev = (pos > 0) ? stops[pos - 1] : DistanceOracle.DEPOT;
+        int next = (pos < len) ? stops[pos] : DistanceOracle.DEPOT;
+        length += oracle.dist(prev, idx) + oracle.dist(idx, next) - oracle.dist(prev, next);
+
+        if (len == stops.length) stops = Arrays.copyOf(stops, len * 2);
+        System.arraycopy(stops, pos, stops, pos + 1, len - pos);
+        stops[pos] = idx;
+        len++;
+        load += store.demand(idx);
+        stale = true;
+        return true;
+    }
+
+    /** Removes the stop at pos, closing the gap (never makes a feasible route infeasible). */
+    public int removeAt(int pos) {
+        int idx = stops[pos];
+        int prev = (pos > 0) ? stops[pos - 1] : DistanceOracle.DEPOT;
+        int next = (pos < len - 1) ? stops[pos + 1] : DistanceOracle.DEPOT;
+        length += oracle.dist(prev, next) - oracle.dist(prev, idx) - oracle.dist(idx, next);
+
+        System.arraycopy(stops, pos + 1, stops, pos, len - pos - 1);
+        len--;
+        load -= store.demand(idx);
+        lastItem = -1;
+        stale = true;
+        return idx;
+    }
+
+    /** Position of item idx in the route, or -1. */
+    public int indexOf(int idx) {
+        for (int p = 0; p < len; p++) {
+            if (stops[p] == idx) return p;
+        }
+        return -1;
+    }
+
+    // forward service starts and backward latest starts
+    private void retime() {
+        if (serviceStart == null || serviceStart.length < stops.length) {
+            serviceStart = new double[stops.length];
+            latestStart = new double[stops.length];
+        }
+        double t = 0.0;
+        int prev = DistanceOracle.DEPOT;
+        for (int p = 0; p < len; p++) {
+            t = Math.max(t + oracle.dist(prev, stops[p]), store.startTime(stops[p]));
+            serviceStart[p] = t;
+            prev = stops[p];
+        }
+        double latest = Double.POSITIVE_INFINITY;
+        for (int p = len - 1; p >= 0; p--) {
+            double own = store.endTime(stops[p]);
+            latest = (p == len - 1) ? own : Math.min(own, latest - oracle.dist(stops[p], stops[p + 1]));
+            latestStart[p] = latest;
+        }
+        stale = false;
+    }
+}
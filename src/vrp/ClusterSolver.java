@@ -0,0 +1,224 @@
+package vrp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Cluster-first, route-second decomposition (CLUSTER technique).
+ *
+ *  1. partition: capacity-constrained k-means, one cluster per vehicle. Items are
+ *     points (x, y, t) where t is the middle of the time window, scaled so that
+ *     the planning horizon spans about as much as the map; items with close
+ *     windows and close positions end up together.
+ *  2. routeCluster: each cluster is routed on its own (greedy + local search).
+ *     In JADE mode this runs on the DeliveryAgents, one cluster each, in parallel.
+ *  3. repair: items that no cluster could take, or its route could not serve,
+ *     are put into any route by cheapest feasible insertion.
+ */
+public final class ClusterSolver {
+
+    public static final int KMEANS_ROUNDS = 10;
+
+    private ClusterSolver() {}
+
+    public static class Result {
+        public final Map<String, int[]> routeIndices = new LinkedHashMap<>();
+        public int delivered;
+        public double totalDistance;
+        public int repaired;      // stops added by the repair round
+    }
+
+    /* ================== 1) Partition ================== */
+
+    /**
+     * Cluster of every item (0..k-1), or -1 when the item did not fit any cluster's
+     * capacity. Deterministic for a given seed.
+     */
+    public static int[] partition(ItemStore store, int k, int capacity, long seed) {
+        int n = store.size();
+        int[] clusterOf = new int[n];
+        Arrays.fill(clusterOf, -1);
+        if (n == 0 || k <= 0) return clusterOf;
+
+        // features: position plus the window's middle, horizon scaled to the map's extent
+        double[] fx = new double[n], fy = new double[n], ft = new double[n];
+        double x0 = 0, x1 = 0, y0 = 0, y1 = 0, horizon = 0;
+        boolean windows = false;
+        for (int i = 0; i < n; i++) {
+            fx[i] = store.x(i);
+            fy[i] = store.y(i);
+            x0 = Math.min(x0, fx[i]); x1 = Math.max(x1, fx[i]);
+            y0 = Math.min(y0, fy[i]); y1 = Math.max(y1, fy[i]);
+            if (store.endTime(i) != Integer.MAX_VALUE) {
+                windows = true;
+                horizon = Math.max(horizon, store.endTime(i));
+            }
+        }
+        double tScale = (windows && horizon > 0) ? Math.max(x1 - x0, y1 - y0) / horizon : 0.0;
+        for (int i = 0; i < n; i++) {
+            double end = (store.endTime(i) == Integer.MAX_VALUE) ? horizon : store.endTime(i);
+            ft[i] = 0.5 * (store.startTime(i) + end) * tScale;
+        }
+
+        // k-means++ seeding
+        k = Math.min(k, n);
+        SplittableRandom rnd = new SplittableRandom(seed);
+        double[] cx = new double[k], cy = new double[k], ct = new double[k];
+        double[] d2 = new double[n];
+        Arrays.fill(d2, Double.POSITIVE_INFINITY);
+        int pick = rnd.nextInt(n);
+        for (int c = 0; c < k; c++) {
+            cx[c] = fx[pick]; cy[c] = fy[pick]; ct[c] = ft[pick];
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                d2[i] = Math.min(d2[i], sq(fx[i] - cx[c], fy[i] - cy[c], ft[i] - ct[c]));
+                sum += d2[i];
+            }
+            double r = rnd.nextDouble() * sum;
+            for (pick = 0; pick < n - 1 && (r -= d2[pick]) > 0; pick++) { }
+        }
+
+        // Lloyd rounds with capacity-constrained assignment
+        double[] regret = new double[n];
+        int[] left = new int[k];
+        for (int round = 0; round < KMEANS_ROUNDS; round++) {
+            // assign items with the most to lose first: gap between best and second-best centre
+            Integer[] byRegret = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                double b1 = Double.POSITIVE_INFINITY, b2 = Double.POSITIVE_INFINITY;
+                for (int c = 0; c < k; c++) {
+                    double d = sq(fx[i] - cx[c], fy[i] - cy[c], ft[i] - ct[c]);
+                    if (d < b1) { b2 = b1; b1 = d; } else if (d < b2) { b2 = d; }
+                }
+                regret[i] = (k == 1) ? 0 : b2 - b1;
+                byRegret[i] = i;
+            }
+            Arrays.sort(byRegret, (a, b) -> Double.compare(regret[b], regret[a]));
+
+            Arrays.fill(left, capacity);
+            boolean changed = false;
+            for (int i : byRegret) {
+                int best = -1;
+                double bestD = Double.POSITIVE_INFINITY;
+                for (int c = 0; c < k; c++) {
+                    if (left[c] < store.demand(i)) continue;
+                    double d = sq(fx[i] - cx[c], fy[i] - cy[c], ft[i] - ct[c]);
+                    if (d < bestD) { bestD = d; best = c; }
+                }
+                if (best >= 0) left[best] -= store.demand(i);
+                if (clusterOf[i] != best) changed = true;
+                clusterOf[i] = best;
+            }
+            if (!changed && round > 0) break;
+
+            // move centres to their members' mean (empty clusters keep theirs)
+            double[] sx = new double[k], sy = new double[k], st = new double[k];
+            int[] cnt = new int[k];
+            for (int i = 0; i < n; i++) {
+                int c = clusterOf[i];
+                if (c < 0) continue;
+                sx[c] += fx[i]; sy[c] += fy[i]; st[c] += ft[i]; cnt[c]++;
+            }
+            for (int c = 0; c < k; c++) {
+                if (cnt[c] == 0) continue;
+                cx[c] = sx[c] / cnt[c]; cy[c] = sy[c] / cnt[c]; ct[c] = st[c] / cnt[c];
+            }
+        }
+        return clusterOf;
+    }
+
+    /** Item indices of each cluster, in item order. */
+    public static int[][] members(int[] clusterOf, int k) {
+        int[] count = new int[k];
+        for (int c : clusterOf) if (c >= 0) count[c]++;
+        int[][] out = new int[k][];
+        for (int c = 0; c < k; c++) out[c] = new int[count[c]];
+        Arrays.fill(count, 0);
+        for (int i = 0; i < clusterOf.length; i++) {
+            int c = clusterOf[i];
+            if (c >= 0) out[c][count[c]++] = i;
+        }
+        return out;
+    }
+
+    /* ================== 2) Route one cluster ================== */
+
+    /** One vehicle's route over a cluster's own store (positions in that store). */
+    public static int[] routeCluster(ItemStore cluster, DistanceOracle oracle, int capacity, double dv) {
+        GreedyOptimizer.Result g = GreedyOptimizer.solve(cluster, oracle, 1, capacity, dv);
+        int[] route = g.routeIndices.values().iterator().next();
+        if (route.length < 2) return route;
+
+        int[][] routes = { route };
+        int[] lengths = { route.length };
+        RouteLocalSearch.byDemand(cluster, oracle).improve(routes, lengths, capacity, dv);
+        return Arrays.copyOf(routes[0], lengths[0]);
+    }
+
+    /* ================== 3) Repair ================== */
+
+    /**
+     * Inserts every item not on any route at its cheapest feasible place, closest
+     * to the depot first. Routes are replaced by their repaired versions; returns
+     * the number of items inserted.
+     */
+    public static int repair(ItemStore store, DistanceOracle oracle, int[][] routes, int capacity, double dv) {
+        boolean[] routed = new boolean[store.size()];
+        List<CheapestInsertion> builders = new ArrayList<>(routes.length);
+        for (int[] r : routes) {
+            for (int idx : r) routed[idx] = true;
+            builders.add(new CheapestInsertion(store, oracle, capacity, dv, r, r.length));
+        }
+
+        Integer[] leftovers = IntStream.range(0, store.size()).filter(i -> !routed[i]).boxed().toArray(Integer[]::new);
+        Arrays.sort(leftovers, (a, b) -> Double.compare(oracle.depot(a), oracle.depot(b)));
+
+        int inserted = 0;
+        for (int idx : leftovers) {
+            CheapestInsertion best = null;
+            double bestCost = Double.POSITIVE_INFINITY;
+            for (CheapestInsertion b : builders) {
+                double c = b.cost(idx);
+                if (c < bestCost) { bestCost = c; best = b; }
+            }
+            if (best != null && best.insert(idx)) inserted++;
+        }
+
+        for (int v = 0; v < routes.length; v++) routes[v] = builders.get(v).route();
+        return inserted;
+    }
+
+    /* ================== Whole pipeline (local mode) ================== */
+
+    /** Partition, route the clusters in parallel, repair. Routes are named DA1..DAk. */
+    public static Result solve(ItemStore store, DistanceOracle oracle, int k, int capacity, double dv, long seed) {
+        int[][] members = members(partition(store, k, capacity, seed), k);
+
+        int[][] routes = new int[k][];
+        IntStream.range(0, k).parallel().forEach(c -> {
+            List<Item> items = store.toItems(members[c], members[c].length);
+            ItemStore sub = ItemStore.of(items);
+            int[] local = routeCluster(sub, DistanceOracle.of(sub), capacity, dv);
+            routes[c] = new int[local.length];
+            for (int p = 0; p < local.length; p++) routes[c][p] = members[c][local[p]];
+        });
+
+        Result res = new Result();
+        res.repaired = repair(store, oracle, routes, capacity, dv);
+        for (int c = 0; c < k; c++) {
+            res.routeIndices.put("DA" + (c + 1), routes[c]);
+            res.delivered += routes[c].length;
+            res.totalDistance += oracle.routeLength(routes[c], routes[c].length);
+        }
+        return res;
+    }
+
+    private static double sq(double dx, double dy, double dt) {
+        return dx * dx + dy * dy + dt * dt;
+    }
+}
@@ -2,28 +2,148 @@
 package vrp;
 
 import javax.swing.JTextArea;
-import java.io.IOException;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.text.BadLocationException;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 
+/**
+ * Console sink for a JTextArea. Printing threads only decode into a bounded
+ * ring of pending characters; a Swing timer drains the ring on the EDT at most
+ * once per frame, as a single append. When printers outrun the UI the oldest
+ * pending text is dropped (and counted), and the text area itself is trimmed
+ * to its newest maxChars characters, so memory and repaint cost stay bounded.
+ */
 public class ConsoleRedirector extends OutputStream {
+
+    private static final int FRAME_MS = 33;
+
     private final JTextArea textArea;
+    private final int maxChars;
 
-    public ConsoleRedirector(JTextArea textArea) {
+    // guarded by this: UTF-8 decoding (keeps split multi-byte chars between writes)
+    // and the ring of text not yet on screen
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer undecoded = ByteBuffer.allocate(8192);   // write mode; holds a split char's first bytes
+    private final CharBuffer decoded = CharBuffer.allocate(8192);
+    private final char[] ring;
+    private int head;      // index of the oldest pending char
+    private int size;
+    private long dropped;
+
+    private final Timer timer;
+
+    /** Keeps at most maxChars characters on screen and pending. */
+    public ConsoleRedirector(JTextArea textArea, int maxChars) {
         this.textArea = textArea;
+        this.maxChars = Math.max(1024, maxChars);
+        this.ring = new char[this.maxChars];
+        this.timer = new Timer(FRAME_MS, e -> drain());
+        this.timer.setCoalesce(true);
+        this.timer.start();
+    }
+
+    public ConsoleRedirector(JTextArea textArea) {
+        this(textArea, 200_000);
+    }
+
+    @Override
+    public void write(int b) {
+        write(new byte[]{(byte) b}, 0, 1);
     }
 
     @Override
-    public void write(int b) throws IOException {
-        // Redirige los datos a la JTextArea
-        textArea.append(String.valueOf((char) b));
-        // Mueve el cursor al final para que siempre se vea lo último
+    public synchronized void write(byte[] b, int off, int len) {
+        int end = off + len;
+        while (off < end) {
+            // a partial sequence left by the previous write is decoded together with these bytes
+            int n = Math.min(end - off, undecoded.remaining());
+            undecoded.put(b, off, n);
+            off += n;
+            undecoded.flip();
+            while (true) {
+                boolean overflow = decoder.decode(undecoded, decoded, false).isOverflow();
+                decoded.flip();
+                while (decoded.hasRemaining()) {
+                    push(decoded.get());
+                }
+                decoded.clear();
+                if (!overflow) break;
+            }
+            undecoded.compact();
+        }
+    }
+
+    /** Shows what is pending and stops the refresh timer; later writes stay in the (bounded) ring. */
+    @Override
+    public void close() {
+        SwingUtilities.invokeLater(() -> {
+            drain();
+            timer.stop();
+        });
+    }
+
+    // caller holds the lock; a full ring overwrites its oldest char
+    private void push(char c) {
+        if (size == ring.length) {
+            head = (head + 1) % ring.length;
+            size--;
+            dropped++;
+        }
+        ring[(head + size) % ring.length] = c;
+        size++;
+    }
+
+    // EDT: move everything pending into the text area in one append
+    private void drain() {
+        String text;
+        long lost;
+        synchronized (this) {
+            if (size == 0) return;
+            int first = Math.min(size, ring.length - head);
+            StringBuilder sb = new StringBuilder(size + 48);
+            sb.append(ring, head, first).append(ring, 0, size - first);
+            text = sb.toString();
+            lost = dropped;
+            head = 0;
+            size = 0;
+            dropped = 0;
+        }
+
+        if (lost > 0) {
+            textArea.append("… " + lost + " characters of console output dropped …\n");
+        }
+        textArea.append(text);
+        trim();
         textArea.setCaretPosition(textArea.getDocument().getLength());
     }
 
+    // drop the oldest text, cutting at a line boundary where possible
+    private void trim() {
+        int excess = textArea.getDocument().getLength() - maxChars;
+        if (excess <= 0) return;
+        try {
+            int line = textArea.getLineOfOffset(excess);
+            int cut = textArea.getLineEndOffset(line);
+            if (cut < excess || cut - excess > 1024) cut = excess;   // no nearby line end
+            textArea.replaceRange("", 0, Math.min(cut, textArea.getDocument().getLength()));
+        } catch (BadLocationException e) {
+            textArea.replaceRange("", 0, excess);
+        }
+    }
+
     public static void redirectSystemStreams(JTextArea logArea) {
         OutputStream out = new ConsoleRedirector(logArea);
-        System.setOut(new PrintStream(out, true));
-        System.setErr(new PrintStream(out, true));
+        // System.out/err and the sink both use UTF-8, so "→" etc. survive
+        System.setOut(new PrintStream(out, true, StandardCharsets.UTF_8));
+        System.setErr(new PrintStream(out, true, StandardCharsets.UTF_8));
     }
-}
\ No newline at end of file
+}
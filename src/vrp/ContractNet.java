@@ -0,0 +1,158 @@
+package vrp;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Contract-net item assignment (CNET technique).
+ *
+ * Items are announced in batches, earliest window end first. Every vehicle bids
+ * on each item of the batch with the extra distance of its cheapest feasible
+ * insertion into its current route (CheapestInsertion); each item is awarded
+ * to its lowest bidder. A winner inserts its awarded items cheapest bid first;
+ * one that no longer fits after the earlier ones is announced again in the
+ * next batch. Items nobody can take are left out.
+ *
+ * In JADE mode the vehicles are the DeliveryAgents (CFP / PROPOSE / ACCEPT_PROPOSAL
+ * in ManagerAgent and DeliveryAgent); {@link #solve} runs the same auction in
+ * process, bidding for all vehicles in parallel.
+ */
+public final class ContractNet {
+
+    public static final int DEFAULT_BATCH = 32;
+
+    /** Bid value for an item that cannot be inserted (JSON has no infinity). */
+    public static final double NO_BID = -1.0;
+
+    private ContractNet() {}
+
+    public static class Result {
+        public final Map<String, int[]> routeIndices = new LinkedHashMap<>();
+        public int delivered;
+        public double totalDistance;
+        public int rounds;
+        public int reannounced;   // awards that did not fit any more and went out again
+    }
+
+    /** Announcement order: earliest window end first, nearer to the depot on ties. */
+    public static int[] announceOrder(ItemStore store, DistanceOracle oracle) {
+        Integer[] order = new Integer[store.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> {
+            int c = Integer.compare(store.endTime(a), store.endTime(b));
+            return (c != 0) ? c : Double.compare(oracle.depot(a), oracle.depot(b));
+        });
+        int[] out = new int[order.length];
+        for (int i = 0; i < out.length; i++) out[i] = order[i];
+        return out;
+    }
+
+    /** One vehicle's bids on a batch: insertion cost per item, NO_BID where infeasible. */
+    public static double[] bid(CheapestInsertion route, int[] batch) {
+        double[] costs = new double[batch.length];
+        for (int b = 0; b < batch.length; b++) {
+            double c = route.cost(batch[b]);
+            costs[b] = (c == Double.POSITIVE_INFINITY) ? NO_BID : c;
+        }
+        return costs;
+    }
+
+    /** True when at least one item of the batch got a bid. */
+    public static boolean anyBid(double[] costs) {
+        for (double c : costs) {
+            if (c != NO_BID) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Winner (vehicle index) of every batch item, -1 when nobody bid.
+     * bids[v] is vehicle v's bid array, or null when it refused; ties go to the lower index.
+     */
+    public static int[] winners(double[][] bids, int batchLen) {
+        int[] winner = new int[batchLen];
+        for (int b = 0; b < batchLen; b++) {
+            winner[b] = -1;
+            double best = Double.POSITIVE_INFINITY;
+            for (int v = 0; v < bids.length; v++) {
+                if (bids[v] == null || bids[v][b] == NO_BID) continue;
+                if (bids[v][b] < best) {
+                    best = bids[v][b];
+                    winner[b] = v;
+                }
+            }
+        }
+        return winner;
+    }
+
+    /** The batch items awarded to vehicle v, cheapest bid first. */
+    public static int[] awardsOf(int v, int[] batch, int[] winner, double[][] bids) {
+        List<Integer> won = new ArrayList<>();
+        for (int b = 0; b < batch.length; b++) {
+            if (winner[b] == v) won.add(b);
+        }
+        won.sort((a, b) -> Double.compare(bids[v][a], bids[v][b]));
+        int[] out = new int[won.size()];
+        for (int i = 0; i < out.length; i++) out[i] = batch[won.get(i)];
+        return out;
+    }
+
+    /** Whole auction in process; routes are named DA1..DAk. */
+    public static Result solve(ItemStore store, DistanceOracle oracle, int k, int capacity, double dv, int batchSize) {
+        CheapestInsertion[] routes = new CheapestInsertion[k];
+        for (int v = 0; v < k; v++) routes[v] = new CheapestInsertion(store, oracle, capacity, dv);
+
+        Result res = new Result();
+        int[] order = announceOrder(store, oracle);
+        int next = 0;
+        Deque<Integer> again = new ArrayDeque<>();
+        int batchMax = Math.max(1, batchSize);
+
+        while (next < order.length || !again.isEmpty()) {
+            int[] batch = new int[batchMax];
+            int len = 0;
+            while (len < batchMax && !again.isEmpty()) batch[len++] = again.pollFirst();
+            while (len < batchMax && next < order.length) batch[len++] = order[next++];
+            int[] call = Arrays.copyOf(batch, len);
+            res.rounds++;
+
+            // every vehicle prices the whole batch against its own route
+            double[][] bids = new double[k][];
+            IntStream.range(0, k).parallel().forEach(v -> {
+                double[] b = bid(routes[v], call);
+                bids[v] = anyBid(b) ? b : null;
+            });
+            int[] winner = winners(bids, len);
+
+            // winners insert their awards; items that no longer fit go out again
+            int[][] failed = new int[k][];
+            IntStream.range(0, k).parallel().forEach(v -> {
+                int[] won = awardsOf(v, call, winner, bids);
+                int[] lost = new int[won.length];
+                int nLost = 0;
+                for (int idx : won) {
+                    if (!routes[v].insert(idx)) lost[nLost++] = idx;
+                }
+                failed[v] = Arrays.copyOf(lost, nLost);
+            });
+            for (int v = k - 1; v >= 0; v--) {
+                for (int i = failed[v].length - 1; i >= 0; i--) again.addFirst(failed[v][i]);
+                res.reannounced += failed[v].length;
+            }
+        }
+
+        for (int v = 0; v < k; v++) {
+            int[] r = routes[v].route();
+            res.routeIndices.put("DA" + (v + 1), r);
+            res.delivered += r.length;
+            res.totalDistance += oracle.routeLength(r, r.length);
+        }
+        return res;
+    }
+}
@@ -3,16 +3,30 @@ package vrp;
 
 import jade.core.AID;
 import jade.core.Agent;
+import jade.core.behaviours.Behaviour;
 import jade.core.behaviours.CyclicBehaviour;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
 
 import com.google.gson.Gson;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
 public class DeliveryAgent extends Agent {
     private int capacity = 10;
     private double maxDistance = 300;
     private final Gson gson = new Gson();
+    // log lines for the GUI, sent in batches
+    private final LogBatcher logs = new LogBatcher(this, "GUI");
+
+    // ISLAND mode: the GA sub-populations evolving on this agent, by job id
+    private final Map<String, IslandBehaviour> islands = new HashMap<>();
+
+    // CNET mode: this agent's route in each auction it takes part in, by job id
+    private final Map<String, Auction> auctions = new HashMap<>();
 
     @Override
     protected void setup() {
@@ -41,29 +55,75 @@ public class DeliveryAgent extends Agent {
         reg.setContent("cap=" + capacity + ",dv=" + maxDistance);
         send(reg);
 
+        addBehaviour(logs.flusher());
         log("DA: " + getLocalName() + " registered cap=" + capacity + " dv=" + maxDistance);
 
-        // Wait for routes
+        // Wait for routes (and island work in ISLAND mode)
         addBehaviour(new CyclicBehaviour(this) {
             @Override
             public void action() {
+                ACLMessage start = myAgent.receive(MessageTemplate.MatchConversationId("island-start"));
+                if (start != null) {
+                    startIsland(start);
+                    return;
+                }
+
+                // CLUSTER mode: route our own cluster and send it back
+                ACLMessage cluster = myAgent.receive(MessageTemplate.MatchConversationId("cluster-start"));
+                if (cluster != null) {
+                    routeCluster(cluster);
+                    return;
+                }
+
+                // CNET mode: calls for proposals, awards and the end of an auction
+                ACLMessage cnet = myAgent.receive(MessageTemplate.MatchConversationId("cnet"));
+                if (cnet != null) {
+                    handleCnet(cnet);
+                    return;
+                }
+
+                // MRA relays a cancel-request: finish this generation and report the best so far
+                ACLMessage cancel = myAgent.receive(MessageTemplate.MatchConversationId("island-cancel"));
+                if (cancel != null) {
+                    IslandBehaviour island = islands.get(cancel.getContent());
+                    if (island != null) {
+                        island.cancelled = true;
+                    }
+                    return;
+                }
+
+                ACLMessage migration = myAgent.receive(MessageTemplate.MatchConversationId("migration"));
+                if (migration != null) {
+                    try {
+                        ManagerAgent.Migration m =
+                                gson.fromJson(migration.getContent(), ManagerAgent.Migration.class);
+                        IslandBehaviour island = (m == null) ? null : islands.get(m.job);
+                        if (island != null) {
+                            island.inbox.add(m.chromosomes);
+                        }
+                    } catch (Exception e) {
+                        logs.log(LogBatcher.Level.WARN, null, getLocalName() + ": Error parsing migration: " + e.getMessage());
+                    }
+                    return;
+                }
+
                 MessageTemplate mt = MessageTemplate.MatchConversationId("route");
                 ACLMessage msg = myAgent.receive(mt);
                 if (msg != null) {
                     log("MRA → " + getLocalName() + ": route payload received");
-                    log("payload: " + trim(msg.getContent(), 240));
+                    logs.log(LogBatcher.Level.DEBUG, null, "payload: " + trim(msg.getContent(), 240));
 
-                    // Parse and log distance if it matches RouteInfo
+                    // Parse and log distance if it matches RouteInfo (JSON unless the MRA says otherwise)
                     try {
-                        ManagerAgent.RouteInfo info =
-                                gson.fromJson(msg.getContent(), ManagerAgent.RouteInfo.class);
+                        ManagerAgent.RouteInfo info = PayloadCodec.forName(
+                                msg.getUserDefinedParameter(PayloadCodec.PARAM)).decodeRoute(msg.getContent());
                         if (info != null) {
                             log(getLocalName() + ": route size=" +
                                     (info.route == null ? 0 : info.route.size()) +
                                     " distance=" + String.format("%.1f", info.distance));
                         }
                     } catch (Exception e) {
-                        log(getLocalName() + ": Error parsing route: " + e.getMessage());
+                        logs.log(LogBatcher.Level.WARN, null, getLocalName() + ": Error parsing route: " + e.getMessage());
                     }
                 } else {
                     block();
@@ -72,13 +132,258 @@ public class DeliveryAgent extends Agent {
         });
     }
 
+    /* ================== ISLAND mode ================== */
+
+    private void startIsland(ACLMessage msg) {
+        ManagerAgent.IslandTask task;
+        try {
+            task = gson.fromJson(msg.getContent(), ManagerAgent.IslandTask.class);
+        } catch (Exception e) {
+            logs.log(LogBatcher.Level.WARN, null, getLocalName() + ": Error parsing island-start: " + e.getMessage());
+            return;
+        }
+
+        // islands of different jobs evolve side by side; each one reports its own result
+        if (islands.containsKey(task.job)) {
+            logs.log(LogBatcher.Level.WARN, null, getLocalName() + ": island " + task.job + " already running");
+            return;
+        }
+        IslandBehaviour island = new IslandBehaviour(task);
+        islands.put(task.job, island);
+        addBehaviour(island);
+
+        log(getLocalName() + ": island " + task.job + " started (items=" + task.items.size() +
+                ", pop=" + task.popSize + ", gens=" + task.generations +
+                ", budget=" + task.timeBudgetMs + "ms, next=" + task.next + ")");
+    }
+
+    // Evolves one generation per action() so the agent keeps serving messages in between
+    private class IslandBehaviour extends Behaviour {
+        final ManagerAgent.IslandTask task;
+        final SimpleGAOptimizer.Evolution evolution;
+        // migrants received since the last generation; filled by the message behaviour
+        final ArrayDeque<int[][]> inbox = new ArrayDeque<>();
+        // wall-clock deadline (System.nanoTime) when the task has a time budget
+        final long deadline;
+        long lastGenNanos;
+        boolean cancelled;
+        SimpleGAOptimizer.StopReason stopReason;
+
+        IslandBehaviour(ManagerAgent.IslandTask task) {
+            super(DeliveryAgent.this);
+            this.task = task;
+            ItemStore store = ItemStore.of(task.items);
+            // one thread per island; the platform's containers provide the parallelism
+            this.deadline = System.nanoTime() + task.timeBudgetMs * 1_000_000L;
+            this.evolution = new SimpleGAOptimizer(task.seed).start(
+                    store, DistanceOracle.of(store),
+                    task.numVehicles, task.capacity, task.dv, task.popSize);
+        }
+
+        @Override
+        public void action() {
+            while (!inbox.isEmpty()) {
+                evolution.immigrate(inbox.poll());
+            }
+
+            long genStart = System.nanoTime();
+            evolution.step();
+            lastGenNanos = System.nanoTime() - genStart;
+
+            int g = evolution.generation();
+            if (task.migrationInterval > 0 && g % task.migrationInterval == 0
+                    && task.next != null && !task.next.equals(getLocalName())) {
+                ManagerAgent.Migration m = new ManagerAgent.Migration();
+                m.job = task.job;
+                m.generation = g;
+                m.chromosomes = evolution.elites(task.migrants);
+
+                ACLMessage out = new ACLMessage(ACLMessage.INFORM);
+                out.setConversationId("migration");
+                out.addReceiver(new AID(task.next, AID.ISLOCALNAME));
+                out.setContent(gson.toJson(m));
+                send(out);
+            }
+        }
+
+        @Override
+        public boolean done() {
+            // same limits as SimpleGAOptimizer's anytime solve, checked between generations;
+            // with every limit off the generation count (possibly 0) still applies
+            boolean capped = task.generations > 0 || (task.timeBudgetMs <= 0 && task.stallGenerations <= 0);
+            if (cancelled) {
+                stopReason = SimpleGAOptimizer.StopReason.CANCELLED;
+            } else if (capped && evolution.generation() >= task.generations) {
+                stopReason = SimpleGAOptimizer.StopReason.GENERATIONS;
+            } else if (task.stallGenerations > 0
+                    && evolution.generationsWithoutImprovement() >= task.stallGenerations) {
+                stopReason = SimpleGAOptimizer.StopReason.STALLED;
+            } else if (task.timeBudgetMs > 0 && evolution.generation() > 0
+                    && System.nanoTime() + lastGenNanos - deadline > 0) {
+                stopReason = SimpleGAOptimizer.StopReason.TIME_BUDGET;
+            }
+            return stopReason != null;
+        }
+
+        @Override
+        public int onEnd() {
+            ManagerAgent.IslandResult r = new ManagerAgent.IslandResult();
+            r.job = task.job;
+            r.island = getLocalName();
+            r.generations = evolution.generation();
+            r.stopReason = stopReason;
+            r.fitness = evolution.bestFitness();
+            r.chromosome = evolution.bestChromosome();
+
+            ACLMessage out = new ACLMessage(ACLMessage.INFORM);
+            out.setConversationId("island-result");
+            out.addReceiver(new AID("MRA", AID.ISLOCALNAME));
+            out.setContent(gson.toJson(r));
+            send(out);
+
+            log(getLocalName() + String.format(": island %s done after %d gens (%s), best fitness=%.1f",
+                    task.job, r.generations, r.stopReason, r.fitness));
+            islands.remove(task.job, this);
+            return 0;
+        }
+    }
+
+    /* ================== CLUSTER mode ================== */
+
+    // One vehicle over this DA's cluster (greedy + local search);
+    // every DA does this at the same time on its own thread
+    private void routeCluster(ACLMessage msg) {
+        ManagerAgent.ClusterTask task;
+        try {
+            task = gson.fromJson(msg.getContent(), ManagerAgent.ClusterTask.class);
+        } catch (Exception e) {
+            logs.log(LogBatcher.Level.WARN, null, getLocalName() + ": Error parsing cluster-start: " + e.getMessage());
+            return;
+        }
+
+        long t0 = System.currentTimeMillis();
+        ItemStore store = ItemStore.of(task.items);
+        DistanceOracle oracle = DistanceOracle.of(store);
+        int[] route = ClusterSolver.routeCluster(store, oracle, task.capacity, task.dv);
+
+        ManagerAgent.ClusterResult r = new ManagerAgent.ClusterResult();
+        r.job = task.job;
+        r.agent = getLocalName();
+        r.route = route;
+        r.distance = oracle.routeLength(route, route.length);
+
+        ACLMessage out = msg.createReply();
+        out.setPerformative(ACLMessage.INFORM);
+        out.setConversationId("cluster-result");
+        out.setContent(gson.toJson(r));
+        send(out);
+
+        log(getLocalName() + String.format(": cluster %s routed %d of %d items, dist=%.1f (%d ms)",
+                task.job, route.length, task.items.size(), r.distance, System.currentTimeMillis() - t0));
+    }
+
+    /* ================== CNET mode ================== */
+
+    // Our side of one auction: the job's items and the route built from what we won
+    private static class Auction {
+        ItemStore store;
+        DistanceOracle oracle;
+        CheapestInsertion route;
+    }
+
+    private void handleCnet(ACLMessage msg) {
+        try {
+            switch (msg.getPerformative()) {
+                case ACLMessage.CFP:
+                    bid(msg);
+                    break;
+                case ACLMessage.ACCEPT_PROPOSAL:
+                    insertAwards(msg);
+                    break;
+                case ACLMessage.CANCEL:
+                    Auction a = auctions.remove(msg.getContent());
+                    if (a != null) {
+                        log(getLocalName() + ": auction " + msg.getContent() + " closed, route of " +
+                                a.route.size() + " items, dist=" + String.format("%.1f", a.route.length()));
+                    }
+                    break;
+                default:
+                    break; // REJECT_PROPOSAL: route unchanged, nothing to answer
+            }
+        } catch (Exception e) {
+            logs.log(LogBatcher.Level.WARN, null, getLocalName() + ": Error in cnet message: " + e.getMessage());
+        }
+    }
+
+    // CFP: price every announced item against our current route
+    private void bid(ACLMessage msg) {
+        ManagerAgent.CnetCall call = gson.fromJson(msg.getContent(), ManagerAgent.CnetCall.class);
+        Auction a = auctions.get(call.job);
+        if (a == null) {
+            if (call.items == null) return; // joined too late to know the items
+            a = new Auction();
+            a.store = ItemStore.of(call.items);
+            a.oracle = DistanceOracle.of(a.store);
+            a.route = new CheapestInsertion(a.store, a.oracle, call.capacity, call.dv);
+            auctions.put(call.job, a);
+        }
+
+        double[] costs = ContractNet.bid(a.route, call.batch);
+        ACLMessage out = msg.createReply();
+        if (ContractNet.anyBid(costs)) {
+            ManagerAgent.CnetBid b = new ManagerAgent.CnetBid();
+            b.job = call.job;
+            b.round = call.round;
+            b.costs = costs;
+            out.setPerformative(ACLMessage.PROPOSE);
+            out.setContent(gson.toJson(b));
+        } else {
+            out.setPerformative(ACLMessage.REFUSE);
+            out.setContent(call.job + " " + call.round);
+        }
+        send(out);
+    }
+
+    // ACCEPT_PROPOSAL: insert the won items, cheapest bid first; report where they went
+    private void insertAwards(ACLMessage msg) {
+        ManagerAgent.CnetAward award = gson.fromJson(msg.getContent(), ManagerAgent.CnetAward.class);
+        Auction a = auctions.get(award.job);
+        if (a == null) return;
+
+        int n = award.items.length;
+        int[] inserted = new int[n];
+        int[] positions = new int[n];
+        int[] failed = new int[n];
+        int ok = 0, lost = 0;
+        for (int idx : award.items) {
+            if (a.route.insert(idx)) {
+                inserted[ok] = idx;
+                positions[ok++] = a.route.indexOf(idx);
+            } else {
+                failed[lost++] = idx;
+            }
+        }
+
+        ManagerAgent.CnetDone done = new ManagerAgent.CnetDone();
+        done.job = award.job;
+        done.round = award.round;
+        done.inserted = Arrays.copyOf(inserted, ok);
+        done.positions = Arrays.copyOf(positions, ok);
+        done.failed = Arrays.copyOf(failed, lost);
+
+        ACLMessage out = msg.createReply();
+        out.setPerformative(ACLMessage.INFORM);
+        out.setContent(gson.toJson(done));
+        send(out);
+    }
+
+    @Override
+    protected void takeDown() {
+        logs.flush();
+    }
+
     private void log(String line) {
-        ACLMessage log = new ACLMessage(ACLMessage.INFORM);
-        log.setConversationId("log");
-        log.setContent(line);
-        log.addReceiver(new AID("GUI", AID.ISLOCALNAME));
-        send(log);
-        System.out.println(line);
+        logs.info(line);
     }
 
     private static String trim(String s, int max) {
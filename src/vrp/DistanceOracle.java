@@ -0,0 +1,99 @@
+package vrp;
+
+import java.util.List;
+
+/**
+ * Euclidean distances between the items of one request (plus the depot at 0,0),
+ * computed once and then read by every optimizer instead of calling Math.hypot.
+ *
+ * Items are addressed by their index in the {@link ItemStore} the oracle was built
+ * from; the depot is {@link #DEPOT}. Small and medium instances get a dense flat
+ * (n+1) x (n+1) matrix. Above {@link #MAX_DENSE} items the matrix would not fit
+ * comfortably in memory, so distances are computed from the cached coordinates.
+ */
+public final class DistanceOracle {
+
+    public static final int DEPOT = -1;
+
+    // 2500 items -> ~50 MB of doubles; anything bigger falls back to on-the-fly
+    public static final int MAX_DENSE = 2500;
+
+    private final int n;
+    private final int stride;          // n + 1 (row 0 / column 0 = depot)
+    private final double[] xs;         // node coordinates, node 0 = depot
+    private final double[] ys;
+    private final double[] matrix;     // null when not dense
+
+    private DistanceOracle(ItemStore store, boolean dense) {
+        this.n = store.size();
+        this.stride = n + 1;
+        this.xs = new double[stride];
+        this.ys = new double[stride];
+
+        for (int i = 0; i < n; i++) {
+            xs[i + 1] = store.x(i);
+            ys[i + 1] = store.y(i);
+        }
+
+        if (dense) {
+            matrix = new double[stride * stride];
+            for (int a = 0; a < stride; a++) {
+                int row = a * stride;
+                // symmetric: compute the upper triangle and mirror it
+                for (int b = a + 1; b < stride; b++) {
+                    double d = Math.hypot(xs[a] - xs[b], ys[a] - ys[b]);
+                    matrix[row + b] = d;
+                    matrix[b * stride + a] = d;
+                }
+            }
+        } else {
+            matrix = null;
+        }
+    }
+
+    // --- Factories ---
+    public static DistanceOracle of(ItemStore store) {
+        return new DistanceOracle(store, store.size() <= MAX_DENSE);
+    }
+
+    public static DistanceOracle of(List<Item> items) {
+        return of(ItemStore.of(items));
+    }
+
+    // Never builds the matrix (useful when the oracle is only needed briefly)
+    public static DistanceOracle lazy(ItemStore store) {
+        return new DistanceOracle(store, false);
+    }
+
+    // --- Queries ---
+    public int size() { return n; }
+
+    public boolean isDense() { return matrix != null; }
+
+    /** Distance between two item indices (either may be {@link #DEPOT}). */
+    public double dist(int a, int b) {
+        int na = a + 1;
+        int nb = b + 1;
+        if (matrix != null) {
+            return matrix[na * stride + nb];
+        }
+        return Math.hypot(xs[na] - xs[nb], ys[na] - ys[nb]);
+    }
+
+    /** Distance from the depot to item i. */
+    public double depot(int i) {
+        return dist(DEPOT, i);
+    }
+
+    /** Depot -> stops -> depot length of a route given as item indices. */
+    public double routeLength(int[] route, int len) {
+        if (len == 0) return 0.0;
+        double total = 0.0;
+        int prev = DEPOT;
+        for (int k = 0; k < len; k++) {
+            total += dist(prev, route[k]);
+            prev = route[k];
+        }
+        return total + dist(prev, DEPOT);
+    }
+}
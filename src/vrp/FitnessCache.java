@@ -0,0 +1,167 @@
+package vrp;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Bounded memo of chromosome -> fitness for the GA. Duplicate children (OX between
+ * near-identical parents, unmutated copies) are common once a population converges,
+ * and decoding one costs far more than hashing and comparing it.
+ *
+ * Entries are keyed by a 64-bit hash of the permutation; the chromosome itself is
+ * kept and compared on every hit, so a hash collision is a miss, never a wrong value.
+ * The cache is split into independently locked stripes so parallel fitness
+ * evaluation does not serialise on it. Each stripe evicts with CLOCK (second
+ * chance): a hit sets the slot's reference bit, the hand clears bits until it
+ * finds an unreferenced slot to reuse. An evicted slot's chromosome array is
+ * overwritten in place rather than reallocated.
+ */
+public final class FitnessCache {
+
+    private final Stripe[] stripes;
+    private final int stripeShift;
+    private final int capacity;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /** capacity = total number of chromosomes kept; 0 disables caching. */
+    public FitnessCache(int capacity) {
+        this.capacity = Math.max(0, capacity);
+        // a few stripes per core, but never stripes with less than 8 slots
+        int want = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() * 4, this.capacity / 8));
+        int count = Integer.highestOneBit(want);
+        this.stripes = new Stripe[count];
+        this.stripeShift = 64 - Integer.numberOfTrailingZeros(count);
+        int perStripe = (this.capacity + count - 1) / count;
+        for (int s = 0; s < count; s++) {
+            stripes[s] = new Stripe(perStripe);
+        }
+    }
+
+    /** Cached fitness of chrom, or evaluate(chrom) recorded for next time. */
+    public double fitness(int[] chrom, ToDoubleFunction<int[]> evaluate) {
+        if (capacity == 0) {
+            misses.increment();
+            return evaluate.applyAsDouble(chrom);
+        }
+        long h = hash(chrom);
+        Stripe s = stripeFor(h);
+        synchronized (s) {
+            int slot = s.find(h, chrom);
+            if (slot >= 0) {
+                s.referenced[slot] = true;
+                hits.increment();
+                return s.values[slot];
+            }
+        }
+        misses.increment();
+
+        // decode outside the lock; a racing duplicate just computes the same value twice
+        double fit = evaluate.applyAsDouble(chrom);
+        synchronized (s) {
+            if (s.find(h, chrom) < 0 && s.insert(h, chrom, fit)) {
+                evictions.increment();
+            }
+        }
+        return fit;
+    }
+
+    // --- Counters ---
+    public long hits() { return hits.sum(); }
+    public long misses() { return misses.sum(); }
+    public long evictions() { return evictions.sum(); }
+
+    public double hitRate() {
+        long h = hits(), total = h + misses();
+        return (total == 0) ? 0.0 : (double) h / total;
+    }
+
+    public int capacity() { return capacity; }
+
+    public int size() {
+        int n = 0;
+        for (Stripe s : stripes) {
+            synchronized (s) { n += s.used; }
+        }
+        return n;
+    }
+
+    /** 64-bit hash of a permutation (order-sensitive). */
+    public static long hash(int[] chrom) {
+        long h = 0x9E3779B97F4A7C15L ^ chrom.length;
+        for (int g : chrom) {
+            h = (h ^ g) * 0xBF58476D1CE4E5B9L;
+            h ^= h >>> 29;
+        }
+        // final avalanche (splitmix64), so the top bits are usable for striping
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    private Stripe stripeFor(long h) {
+        return (stripes.length == 1) ? stripes[0] : stripes[(int) (h >>> stripeShift)];
+    }
+
+    // One lock's worth of slots, evicted with a CLOCK hand
+    private static final class Stripe {
+        final long[] keys;
+        final int[][] chroms;
+        final double[] values;
+        final boolean[] referenced;
+        final Map<Long, Integer> index;   // hash -> slot
+        int used;
+        int hand;
+
+        Stripe(int slots) {
+            keys = new long[slots];
+            chroms = new int[slots][];
+            values = new double[slots];
+            referenced = new boolean[slots];
+            index = new HashMap<>(slots * 2);
+        }
+
+        int find(long h, int[] chrom) {
+            Integer slot = index.get(h);
+            if (slot == null) return -1;
+            return Arrays.equals(chroms[slot], chrom) ? slot : -1;
+        }
+
+        // Returns true when an older entry had to go
+        boolean insert(long h, int[] chrom, double fit) {
+            int slot;
+            boolean evicted = false;
+            Integer same = index.get(h);
+            if (same != null) {
+                slot = same;                  // hash collision: the newer chromosome wins
+            } else if (used < keys.length) {
+                slot = used++;
+            } else {
+                while (referenced[hand]) {
+                    referenced[hand] = false;
+                    hand = (hand + 1) % keys.length;
+                }
+                slot = hand;
+                hand = (hand + 1) % keys.length;
+                index.remove(keys[slot]);
+                evicted = true;
+            }
+
+            if (chroms[slot] == null || chroms[slot].length != chrom.length) {
+                chroms[slot] = chrom.clone();
+            } else {
+                System.arraycopy(chrom, 0, chroms[slot], 0, chrom.length);
+            }
+            keys[slot] = h;
+            values[slot] = fit;
+            referenced[slot] = false;
+            index.put(h, slot);
+            return evicted;
+        }
+    }
+}
@@ -6,6 +6,8 @@ public class GreedyOptimizer {
 
     public static class Result {
         public final java.util.Map<String, java.util.List<Item>> routes = new LinkedHashMap<>();
+        // same routes as indices into the ItemStore that was solved
+        public final java.util.Map<String, int[]> routeIndices = new LinkedHashMap<>();
         public int delivered = 0;
         public double totalDistance = 0.0;
     }
@@ -14,124 +16,99 @@ public class GreedyOptimizer {
                                int numDAs,
                                int capacityPerDA,
                                double dvPerDA) {
+        ItemStore store = ItemStore.of(items);
+        return solve(store, DistanceOracle.of(store), numDAs, capacityPerDA, dvPerDA);
+    }
+
+    // Index-based variant: works on the store's columns and a prebuilt distance oracle
+    public static Result solve(ItemStore store,
+                               DistanceOracle oracle,
+                               int numDAs,
+                               int capacityPerDA,
+                               double dvPerDA) {
 
         Result res = new Result();
-        java.util.List<Item> remaining = new java.util.ArrayList<>(items);
+
+        // grid over the undelivered items, so each pick only looks at nearby cells
+        SpatialGrid remaining = new SpatialGrid(store, oracle);
 
         for (int a = 1; a <= numDAs; a++) {
             String name = "DA" + a;
-            java.util.List<Item> route = new java.util.ArrayList<>();
-            res.routes.put(name, route);
+            int[] stops = new int[16];
+            int stopCount = 0;
 
             double traveled = 0.0;
-            double curX = 0.0;
-            double curY = 0.0; // depot (0,0)
+            int cur = DistanceOracle.DEPOT; // depot (0,0)
             double curTime = 0.0; // time also starts at 0
             int capLeft = capacityPerDA;
 
-            while (capLeft > 0 && !remaining.isEmpty()) {
-                Item best = null;
-                double bestGainDist = Double.POSITIVE_INFINITY;
+            while (capLeft > 0 && remaining.size() > 0) {
+                final double traveledSoFar = traveled;
+                final double timeNow = curTime;
+                final int capNow = capLeft;
 
-                for (Item it : remaining) {
-                    int dmd = it.getDemand();
-                    if (dmd > capLeft) continue; // capacity check
-
-                    // distance to go from current pos -> this item
-                    double distToItem = dist(curX, curY, it.getX(), it.getY());
+                // closest feasible item; the grid hands candidates in by distance
+                int bestIdx = remaining.nearest(cur, dvPerDA - traveled, (idx, distToItem) -> {
+                    if (store.demand(idx) > capNow) return false; // capacity check
 
                     // newTime = arrive time (curTime + travel)
-                    double arrivalTime = curTime + distToItem;
+                    double arrivalTime = timeNow + distToItem;
 
                     // you can wait until startTime if early
-                    double serviceStart = Math.max(arrivalTime, it.getStartTime());
+                    double serviceStart = Math.max(arrivalTime, store.startTime(idx));
 
                     // but you cannot serve if you would miss the endTime
-                    if (serviceStart > it.getEndTime()) {
-                        // can't meet this item's time window
-                        continue;
-                    }
+                    if (serviceStart > store.endTime(idx)) return false;
 
                     // projected distance including going back to depot
-                    double backHome = dist(it.getX(), it.getY(), 0, 0);
-                    double projectedTotalDist = traveled + distToItem + backHome;
+                    double projectedTotalDist = traveledSoFar + distToItem + oracle.depot(idx);
 
                     // vehicle distance limit check
-                    if (projectedTotalDist > dvPerDA) {
-                        continue;
-                    }
-
-                    // choose the closest feasible item
-                    if (distToItem < bestGainDist) {
-                        bestGainDist = distToItem;
-                        best = it;
-                    }
-                }
+                    return projectedTotalDist <= dvPerDA;
+                });
 
-                if (best == null) break; // no more feasible stops
+                if (bestIdx < 0) break; // no more feasible stops
 
                 // update distance/time/pos with chosen item
-                double leg = dist(curX, curY, best.getX(), best.getY());
+                double leg = oracle.dist(cur, bestIdx);
                 double arrival = curTime + leg;
-                double startService = Math.max(arrival, best.getStartTime());
+                double startService = Math.max(arrival, store.startTime(bestIdx));
                 // assume instant service/drop-off for simplicity
                 double leaveTime = startService;
 
                 traveled += leg;
-                curX = best.getX();
-                curY = best.getY();
+                cur = bestIdx;
                 curTime = leaveTime;
 
-                route.add(best);
-                remaining.remove(best);
-                capLeft -= best.getDemand();
+                if (stopCount == stops.length) {
+                    stops = java.util.Arrays.copyOf(stops, stops.length * 2);
+                }
+                stops[stopCount++] = bestIdx;
+
+                remaining.remove(bestIdx);
+                capLeft -= store.demand(bestIdx);
             }
 
             // close route: return to depot
-            double lastLeg = dist(curX, curY, 0, 0);
+            double lastLeg = oracle.dist(cur, DistanceOracle.DEPOT);
             traveled += lastLeg;
 
             // if returning home violates dvPerDA, trim last stops
-            while (traveled > dvPerDA && !route.isEmpty()) {
-                Item last = route.remove(route.size() - 1);
-                remaining.add(last);
+            while (traveled > dvPerDA && stopCount > 0) {
+                remaining.add(stops[--stopCount]);
 
-                // recompute route distance/time after removing last
-                RecalcResult rr = recomputeRoute(route);
-                traveled = rr.totalDistWithReturn;
+                // recompute route distance after removing last
+                traveled = oracle.routeLength(stops, stopCount);
             }
 
-            res.delivered += route.size();
+            // only now turn the indices back into Items
+            res.routes.put(name, store.toItems(stops, stopCount));
+            res.routeIndices.put(name, java.util.Arrays.copyOf(stops, stopCount));
+
+            res.delivered += stopCount;
             res.totalDistance += traveled;
         }
 
         return res;
     }
-
-    // helper to recompute full route stats after popping last item
-    private static RecalcResult recomputeRoute(java.util.List<Item> route) {
-        double x = 0.0, y = 0.0;
-        double distAccum = 0.0;
-
-        for (Item it : route) {
-            distAccum += dist(x, y, it.getX(), it.getY());
-            x = it.getX();
-            y = it.getY();
-        }
-
-        // distance + return to depot
-        double totalWithReturn = distAccum + dist(x, y, 0, 0);
-
-        RecalcResult r = new RecalcResult();
-        r.totalDistWithReturn = totalWithReturn;
-        return r;
-    }
-
-    private static class RecalcResult {
-        double totalDistWithReturn;
-    }
-
-    private static double dist(double x1, double y1, double x2, double y2) {
-        return Math.hypot(x1 - x2, y1 - y2);
-    }
 }
@@ -12,6 +12,10 @@ import java.util.Map;
 public class GuiAgent extends Agent {
     private MasUI ui;
     private final com.google.gson.Gson gson = new com.google.gson.Gson();
+    // reply-with ids of our optimize-requests, so the MRA can track and cancel them
+    private int requestCounter = 0;
+    // item table of each open request: INDEX/BINARY results refer to items by position
+    private final Map<String, List<Item>> sentItems = new java.util.concurrent.ConcurrentHashMap<>();
 
     @Override
     protected void setup() {
@@ -26,6 +30,7 @@ public class GuiAgent extends Agent {
             // Hook UI → JADE actions
             ui.setOnOptimizeToJade(this::requestOptimizeFromMRA);
             ui.setOnTechniqueChange(this::requestTechniqueChange);
+            ui.setOnCancelJade(this::requestCancel);
             System.out.println("[GUI AGENT] Callbacks registered");
         } else {
             System.out.println("[GUI AGENT] ERROR: No MasUI passed to GuiAgent!");
@@ -46,20 +51,34 @@ public class GuiAgent extends Agent {
                 String cid = msg.getConversationId();
                 System.out.println("[GUI AGENT] Received message with conversationId: " + cid);
 
-                // 1) Plain log lines (sent by ManagerAgent/DeliveryAgents)
-                if ("log".equals(cid)) {
+                // 1) Log lines (sent by ManagerAgent/DeliveryAgents): batches, or a single line
+                if ("log-batch".equals(cid)) {
+                    try {
+                        LogBatcher.Batch batch = gson.fromJson(msg.getContent(), LogBatcher.Batch.class);
+                        List<String> lines = new java.util.ArrayList<>(batch.records.size());
+                        for (LogBatcher.Record r : batch.records) {
+                            lines.add(LogBatcher.format(r));
+                        }
+                        if (ui != null) {
+                            ui.appendMessages(lines);
+                        }
+                    } catch (Exception ex) {
+                        logToUi("GUI: error parsing log-batch: " + ex.getMessage());
+                    }
+                }
+                else if ("log".equals(cid)) {
                     logToUi(msg.getContent());
                 }
                 // 2) Optimization result → update routes on the UI
                 else if ("optimization-result".equals(cid)) {
                     System.out.println("[GUI AGENT] Processing optimization-result");
                     try {
-                        String json = msg.getContent();
-                        System.out.println("[GUI AGENT] JSON content length: " + json.length());
+                        String content = msg.getContent();
+                        PayloadCodec codec = PayloadCodec.forName(msg.getUserDefinedParameter(PayloadCodec.PARAM));
+                        System.out.println("[GUI AGENT] " + codec + " content length: " + content.length());
 
-                        java.lang.reflect.Type t =
-                                new com.google.gson.reflect.TypeToken<Map<String, List<Item>>>() {}.getType();
-                        Map<String, List<Item>> routes = gson.fromJson(json, t);
+                        List<Item> table = sentItems.remove(String.valueOf(msg.getInReplyTo()));
+                        Map<String, List<Item>> routes = codec.decodeRoutes(content, table);
                         String status = msg.getUserDefinedParameter("status");
 
                         System.out.println("[GUI AGENT] Parsed routes: " + routes.size() + " vehicles");
@@ -112,6 +131,24 @@ public class GuiAgent extends Agent {
                         logToUi("GUI: error parsing optimization-result: " + ex.getMessage());
                     }
                 }
+                // 2b) Intermediate GA incumbent → redraw (routes may be absent)
+                else if ("optimization-progress".equals(cid)) {
+                    try {
+                        ManagerAgent.Progress p = gson.fromJson(msg.getContent(), ManagerAgent.Progress.class);
+                        if (p.routeData != null) {
+                            PayloadCodec codec = PayloadCodec.forName(msg.getUserDefinedParameter(PayloadCodec.PARAM));
+                            p.routes = codec.decodeRoutes(p.routeData, sentItems.get(String.valueOf(msg.getInReplyTo())));
+                        }
+                        String status = String.format(
+                                "GA running • Generation %d • Delivered: %d • Total distance: %.1f",
+                                p.generation, p.delivered, p.totalDistance);
+                        if (ui != null) {
+                            ui.updateRoutes(p.routes, status);
+                        }
+                    } catch (Exception ex) {
+                        logToUi("GUI: error parsing optimization-progress: " + ex.getMessage());
+                    }
+                }
                 // 3) Route message mirrored
                 else if ("route".equals(cid)) {
                     logToUi("GUI: route delivered → " + msg.getSender().getLocalName());
@@ -120,6 +157,22 @@ public class GuiAgent extends Agent {
                 else if ("technique-set".equals(cid)) {
                     logToUi("MRA: technique switched to " + msg.getContent());
                 }
+                // 5) Request refused / cancelled before it produced routes
+                else if ("optimize-request".equals(cid)) {
+                    sentItems.remove(String.valueOf(msg.getInReplyTo()));
+                    logToUi("MRA: optimize-request " + msg.getInReplyTo() + " → " + msg.getContent());
+                    if (ui != null) {
+                        SwingUtilities.invokeLater(() -> ui.updateRoutes(null, "MRA: " + msg.getContent()));
+                    }
+                }
+                // 6) Answer to our cancel-request
+                else if ("cancel-request".equals(cid)) {
+                    logToUi("MRA: " + msg.getContent());
+                }
+                // 7) Item change refused (accepted ones come back as optimization-result)
+                else if ("item-add".equals(cid) || "item-remove".equals(cid) || "item-update".equals(cid)) {
+                    logToUi("MRA: " + cid + " → " + msg.getContent());
+                }
                 else {
                     System.out.println("[GUI AGENT] Unknown conversationId: " + cid);
                 }
@@ -137,11 +190,29 @@ public class GuiAgent extends Agent {
         try {
             ACLMessage req = new ACLMessage(ACLMessage.REQUEST);
             req.setConversationId("optimize-request");
+            req.setReplyWith("opt-" + (++requestCounter));
             req.addReceiver(new AID("MRA", AID.ISLOCALNAME));
-            req.setContent(gson.toJson(items));
+            // payload encoding; the MRA answers in the same one
+            PayloadCodec codec = PayloadCodec.forName(ui != null ? ui.getPayloadCodec() : null);
+            req.addUserDefinedParameter(PayloadCodec.PARAM, codec.name());
+            req.setContent(codec.encodeItems(items));
+            if (codec.needsTable()) {
+                sentItems.put(req.getReplyWith(), items);
+            }
+            if (ui != null) {
+                // lets the MRA run the GA with the same seed as the UI field
+                req.addUserDefinedParameter("seed", String.valueOf(ui.getSeed()));
+                // GA stop limits (generation cap stays on the MRA)
+                req.addUserDefinedParameter("timeBudgetMs", String.valueOf(ui.getTimeBudgetMs()));
+                req.addUserDefinedParameter("stallGenerations", String.valueOf(ui.getStallGenerations()));
+                // draw intermediate GA solutions while the run is going
+                req.addUserDefinedParameter("progressRoutes", "true");
+                // MRA log verbosity for this request (DEBUG adds per-item lines)
+                req.addUserDefinedParameter("logLevel", ui.getLogLevel());
+            }
             send(req);
             System.out.println("[GUI AGENT] Sent optimize-request to MRA");
-            logToUi("GUI→MRA: optimize-request (" + items.size() + " items)");
+            logToUi("GUI→MRA: optimize-request " + req.getReplyWith() + " (" + items.size() + " items)");
         } catch (Exception ex) {
             System.err.println("[GUI AGENT] Failed to send optimize-request:");
             ex.printStackTrace();
@@ -167,6 +238,22 @@ public class GuiAgent extends Agent {
         }
     }
 
+    /** Called by the UI's "Cancel (JADE)" button: stop all of our requests on the MRA. */
+    private void requestCancel() {
+        try {
+            ACLMessage cancel = new ACLMessage(ACLMessage.CANCEL);
+            cancel.setConversationId("cancel-request");
+            cancel.addReceiver(new AID("MRA", AID.ISLOCALNAME));
+            cancel.setContent("*");
+            send(cancel);
+            logToUi("GUI→MRA: cancel-request (all)");
+        } catch (Exception ex) {
+            System.err.println("[GUI AGENT] Failed to send cancel-request:");
+            ex.printStackTrace();
+            logToUi("GUI: failed to send cancel-request: " + ex.getMessage());
+        }
+    }
+
     /* ====================== Small utility ====================== */
 
     private void logToUi(String line) {
@@ -0,0 +1,117 @@
+package vrp;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntFunction;
+
+/**
+ * Column-oriented view of a request's items: coordinates, demand and time window
+ * live in primitive arrays indexed by int, so the optimizers can work on indices
+ * and only build {@link Item} objects for the routes they return.
+ *
+ * Index i of the store is position i of the list it was built from.
+ */
+public final class ItemStore {
+
+    private final int n;
+    // ids are only needed for results/UI, so they may be resolved lazily (e.g. .vrpbin dictionary)
+    private final IntFunction<String> ids;
+    private final double[] x;
+    private final double[] y;
+    private final int[] demand;
+    private final int[] startTime;
+    private final int[] endTime;
+
+    // Original objects when built from a list, so results hand back the same instances
+    private final List<Item> source;
+
+    ItemStore(String[] ids, double[] x, double[] y,
+              int[] demand, int[] startTime, int[] endTime,
+              List<Item> source) {
+        this(i -> ids[i], x, y, demand, startTime, endTime, source);
+    }
+
+    ItemStore(IntFunction<String> ids, double[] x, double[] y,
+              int[] demand, int[] startTime, int[] endTime,
+              List<Item> source) {
+        this.n = x.length;
+        this.ids = ids;
+        this.x = x;
+        this.y = y;
+        this.demand = demand;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.source = source;
+    }
+
+    // --- Factory ---
+    public static ItemStore of(List<Item> items) {
+        // a list obtained from asList() already has its columns
+        if (items instanceof ListView) {
+            return ((ListView) items).store();
+        }
+
+        int n = items.size();
+        String[] ids = new String[n];
+        double[] x = new double[n];
+        double[] y = new double[n];
+        int[] demand = new int[n];
+        int[] start = new int[n];
+        int[] end = new int[n];
+
+        for (int i = 0; i < n; i++) {
+            Item it = items.get(i);
+            ids[i] = it.getId();
+            x[i] = it.getX();
+            y[i] = it.getY();
+            demand[i] = it.getDemand();
+            start[i] = it.getStartTime();
+            end[i] = it.getEndTime();
+        }
+        return new ItemStore(ids, x, y, demand, start, end, items);
+    }
+
+    // --- Columns ---
+    public int size() { return n; }
+    public String id(int i) { return ids.apply(i); }
+    public double x(int i) { return x[i]; }
+    public double y(int i) { return y[i]; }
+    public int demand(int i) { return demand[i]; }
+    public int startTime(int i) { return startTime[i]; }
+    public int endTime(int i) { return endTime[i]; }
+
+    // --- Back to objects (result building only) ---
+    public Item item(int i) {
+        if (source != null) return source.get(i);
+        return new Item(ids.apply(i), x[i], y[i], demand[i], startTime[i], endTime[i]);
+    }
+
+    public List<Item> toItems(int[] route, int len) {
+        List<Item> out = new ArrayList<>(len);
+        for (int k = 0; k < len; k++) {
+            out.add(item(route[k]));
+        }
+        return out;
+    }
+
+    /**
+     * Read-only List view of the store for code that still works on Items (the UI,
+     * JSON payloads). Items are built on access; handing the view back to
+     * {@link #of(List)} returns this store without copying.
+     */
+    public List<Item> asList() {
+        return (source != null) ? source : new ListView();
+    }
+
+    private final class ListView extends AbstractList<Item> implements RandomAccess {
+        @Override
+        public Item get(int i) { return item(i); }
+
+        @Override
+        public int size() { return n; }
+
+        ItemStore store() { return ItemStore.this; }
+    }
+}
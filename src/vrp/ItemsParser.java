@@ -3,6 +3,18 @@ package vrp;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
 
 public class ItemsParser {
 
@@ -18,7 +30,17 @@ public class ItemsParser {
                 if (line.isEmpty() || line.startsWith("#") || line.startsWith("//")) continue;
 
                 String[] p = line.split("\\s*,\\s*");
-                if (p.length == 4) {
+                if (p.length == 6) {
+                    // id,x,y,demand,start,end
+                    items.add(new Item(
+                            p[0],
+                            Double.parseDouble(p[1]),
+                            Double.parseDouble(p[2]),
+                            Integer.parseInt(p[3]),
+                            Integer.parseInt(p[4]),
+                            Integer.parseInt(p[5])
+                    ));
+                } else if (p.length == 4) {
                     // id,x,y,demand
                     items.add(new Item(
                             p[0],
@@ -47,6 +69,427 @@ public class ItemsParser {
         }
         return items;
     }
-}
 
+    /* ================== Solomon / Gehring–Homberger VRPTW ================== */
+
+    /**
+     * True when the file looks like a Solomon / Gehring–Homberger instance
+     * (VEHICLE and CUSTOMER sections near the top).
+     */
+    public static boolean isSolomon(String path) {
+        try (BufferedReader br = Files.newBufferedReader(Path.of(path), StandardCharsets.UTF_8)) {
+            boolean vehicle = false;
+            String line;
+            for (int ln = 0; ln < 20 && (line = br.readLine()) != null; ln++) {
+                String t = line.trim().toUpperCase();
+                if (t.startsWith("VEHICLE")) vehicle = true;
+                if (t.startsWith("CUSTOMER") && vehicle) return true;
+            }
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+        return false;
+    }
+
+    /**
+     * Reads the standard Solomon / Gehring–Homberger text format:
+     *
+     *   NAME
+     *   VEHICLE
+     *   NUMBER     CAPACITY
+     *     25         200
+     *   CUSTOMER
+     *   CUST NO.  XCOORD.  YCOORD.  DEMAND  READY TIME  DUE DATE  SERVICE TIME
+     *       0       40       50       0        0         1236        0
+     *       1       45       68      10      912          967       90
+     *
+     * Customer 0 is the depot. Item ids are the customer numbers, so routes can
+     * be compared with published solutions.
+     */
+    public static VrptwInstance parseSolomon(String path) throws IOException {
+        List<String> lines = Files.readAllLines(Path.of(path), StandardCharsets.UTF_8);
+        String name = null;
+        int vehicles = -1;
+        int capacity = -1;
+        boolean inVehicle = false;
+        boolean inCustomer = false;
+        List<double[]> rows = new ArrayList<>();
+
+        for (int ln = 0; ln < lines.size(); ln++) {
+            String t = lines.get(ln).trim();
+            if (t.isEmpty()) continue;
+            String upper = t.toUpperCase();
+            if (name == null) {
+                name = t;
+                continue;
+            }
+            if (upper.startsWith("VEHICLE")) {
+                inVehicle = true;
+                continue;
+            }
+            if (upper.startsWith("CUSTOMER")) {
+                inVehicle = false;
+                inCustomer = true;
+                continue;
+            }
+            if (!Character.isDigit(t.charAt(0))) continue;   // column headers
+
+            String[] p = t.split("\\s+");
+            try {
+                if (inVehicle && vehicles < 0 && p.length >= 2) {
+                    vehicles = (int) Double.parseDouble(p[0]);
+                    capacity = (int) Double.parseDouble(p[1]);
+                } else if (inCustomer && p.length >= 7) {
+                    double[] row = new double[7];
+                    for (int k = 0; k < 7; k++) row[k] = Double.parseDouble(p[k]);
+                    rows.add(row);
+                } else {
+                    throw new IllegalArgumentException("Line " + (ln + 1) + " invalid: " + t);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Line " + (ln + 1) + " invalid: " + t);
+            }
+        }
+        if (vehicles < 0 || rows.isEmpty()) {
+            throw new IllegalArgumentException(path + ": no VEHICLE or CUSTOMER section");
+        }
+
+        double[] depot = rows.get(0);
+        if (depot[0] != 0) throw new IllegalArgumentException(path + ": first customer must be the depot (0)");
+
+        List<Item> customers = new ArrayList<>(rows.size() - 1);
+        int[] service = new int[rows.size() - 1];
+        for (int i = 1; i < rows.size(); i++) {
+            double[] r = rows.get(i);
+            customers.add(new Item(
+                    String.valueOf((long) r[0]),
+                    r[1] - depot[1],
+                    r[2] - depot[2],
+                    (int) r[3],
+                    (int) Math.ceil(r[4]),
+                    (int) Math.floor(r[5])
+            ));
+            service[i - 1] = (int) Math.round(r[6]);
+        }
+        return new VrptwInstance(name, vehicles, capacity, depot[1], depot[2],
+                (int) Math.floor(depot[5]), customers, service);
+    }
+
+    /* ================== Fast columnar mode ================== */
+
+    // Files are parsed in line-aligned chunks of about this size, in parallel
+    static final int CHUNK_BYTES = 8 << 20;
+
+    /**
+     * Same line formats as {@link #parseItems} (2, 3, 4 or 6 columns), but the file
+     * is memory-mapped and tokenized straight from bytes, without regex or a String
+     * per line, and large files are split into line-aligned chunks parsed in
+     * parallel. Returns the columns directly as an {@link ItemStore}.
+     *
+     * Unlike parseItems, an integral decimal such as "2.0" is accepted in the
+     * integer columns (demand, start, end).
+     */
+    public static ItemStore parseStore(String path) throws IOException {
+        try (FileChannel ch = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            long size = ch.size();
+            long[] bounds = chunkBounds(ch, size);
+            int chunks = bounds.length - 1;
+
+            Chunk[] parsed = new Chunk[chunks];
+            IntStream range = IntStream.range(0, chunks);
+            if (chunks > 1) range = range.parallel();
+            range.forEach(c -> parsed[c] = parseChunk(ch, bounds[c], bounds[c + 1]));
+
+            for (Chunk c : parsed) {
+                if (c.errorOffset >= 0) {
+                    throw new IllegalArgumentException(
+                            "Line " + lineNumberAt(ch, c.errorOffset) + " invalid: " + c.errorLine);
+                }
+            }
+            return merge(parsed);
+        }
+    }
+
+    // Chunk start offsets: every CHUNK_BYTES, moved forward to just after a '\n'
+    private static long[] chunkBounds(FileChannel ch, long size) throws IOException {
+        List<Long> b = new ArrayList<>();
+        b.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long pos = CHUNK_BYTES;
+        while (pos < size) {
+            long scan = pos;
+            long next = size;
+            outer:
+            while (scan < size) {
+                probe.clear();
+                int r = ch.read(probe, scan);
+                if (r <= 0) break;
+                for (int i = 0; i < r; i++) {
+                    if (probe.get(i) == '\n') {
+                        next = scan + i + 1;
+                        break outer;
+                    }
+                }
+                scan += r;
+            }
+            if (next >= size) break;
+            b.add(next);
+            pos = next + CHUNK_BYTES;
+        }
+        b.add(size);
+
+        long[] out = new long[b.size()];
+        for (int i = 0; i < out.length; i++) out[i] = b.get(i);
+        return out;
+    }
+
+    // Growable columns for one chunk; auto ids (x,y lines) are left null until merge
+    private static final class Chunk {
+        int rows;
+        String[] ids = new String[1024];
+        double[] x = new double[1024];
+        double[] y = new double[1024];
+        int[] demand = new int[1024];
+        int[] start = new int[1024];
+        int[] end = new int[1024];
+
+        long errorOffset = -1;
+        String errorLine;
+
+        void add(String id, double xv, double yv, int d, int s, int e) {
+            if (rows == x.length) {
+                int cap = rows * 2;
+                ids = Arrays.copyOf(ids, cap);
+                x = Arrays.copyOf(x, cap);
+                y = Arrays.copyOf(y, cap);
+                demand = Arrays.copyOf(demand, cap);
+                start = Arrays.copyOf(start, cap);
+                end = Arrays.copyOf(end, cap);
+            }
+            ids[rows] = id;
+            x[rows] = xv;
+            y[rows] = yv;
+            demand[rows] = d;
+            start[rows] = s;
+            end[rows] = e;
+            rows++;
+        }
+    }
+
+    private static Chunk parseChunk(FileChannel ch, long from, long to) {
+        Chunk out = new Chunk();
+        if (to <= from) return out;
+
+        MappedByteBuffer buf;
+        try {
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        } catch (IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
+
+        int limit = buf.limit();
+        int[] fs = new int[6];   // field start offsets
+        int[] fe = new int[6];   // field end offsets (exclusive, trimmed)
+        int pos = 0;
 
+        while (pos < limit) {
+            int lineStart = pos;
+            int lineEnd = pos;
+            while (lineEnd < limit && buf.get(lineEnd) != '\n') lineEnd++;
+            pos = lineEnd + 1;
+
+            // trim (also drops the '\r' of CRLF files)
+            int a = lineStart, b = lineEnd;
+            while (a < b && buf.get(a) <= ' ') a++;
+            while (b > a && buf.get(b - 1) <= ' ') b--;
+            if (a == b) continue;
+            byte first = buf.get(a);
+            if (first == '#' || (first == '/' && b - a > 1 && buf.get(a + 1) == '/')) continue;
+
+            // split on ',' and trim each field
+            int n = 0;
+            int f = a;
+            boolean tooMany = false;
+            while (true) {
+                int c = f;
+                while (c < b && buf.get(c) != ',') c++;
+                if (n == 6) {
+                    tooMany = true;
+                    break;
+                }
+                int s0 = f, e0 = c;
+                while (s0 < e0 && buf.get(s0) <= ' ') s0++;
+                while (e0 > s0 && buf.get(e0 - 1) <= ' ') e0--;
+                fs[n] = s0;
+                fe[n] = e0;
+                n++;
+                if (c >= b) break;
+                f = c + 1;
+            }
+
+            try {
+                if (tooMany) throw new NumberFormatException();
+                if (n == 6) {
+                    // id,x,y,demand,start,end
+                    out.add(text(buf, fs[0], fe[0]),
+                            parseDouble(buf, fs[1], fe[1]), parseDouble(buf, fs[2], fe[2]),
+                            parseInt(buf, fs[3], fe[3]), parseInt(buf, fs[4], fe[4]), parseInt(buf, fs[5], fe[5]));
+                } else if (n == 4) {
+                    // id,x,y,demand
+                    out.add(text(buf, fs[0], fe[0]),
+                            parseDouble(buf, fs[1], fe[1]), parseDouble(buf, fs[2], fe[2]),
+                            parseInt(buf, fs[3], fe[3]), 0, Integer.MAX_VALUE);
+                } else if (n == 3) {
+                    // id,x,y   (demand defaults to 1)
+                    out.add(text(buf, fs[0], fe[0]),
+                            parseDouble(buf, fs[1], fe[1]), parseDouble(buf, fs[2], fe[2]),
+                            1, 0, Integer.MAX_VALUE);
+                } else if (n == 2) {
+                    // x,y  -> auto id (assigned at merge), demand=1
+                    out.add(null,
+                            parseDouble(buf, fs[0], fe[0]), parseDouble(buf, fs[1], fe[1]),
+                            1, 0, Integer.MAX_VALUE);
+                } else {
+                    throw new NumberFormatException();
+                }
+            } catch (NumberFormatException ex) {
+                out.errorOffset = from + lineStart;
+                out.errorLine = text(buf, a, b);
+                return out;
+            }
+        }
+        return out;
+    }
+
+    private static ItemStore merge(Chunk[] chunks) {
+        int total = 0;
+        for (Chunk c : chunks) total += c.rows;
+
+        String[] ids = new String[total];
+        double[] x = new double[total];
+        double[] y = new double[total];
+        int[] demand = new int[total];
+        int[] start = new int[total];
+        int[] end = new int[total];
+
+        int at = 0;
+        int autoId = 1;
+        for (Chunk c : chunks) {
+            System.arraycopy(c.ids, 0, ids, at, c.rows);
+            System.arraycopy(c.x, 0, x, at, c.rows);
+            System.arraycopy(c.y, 0, y, at, c.rows);
+            System.arraycopy(c.demand, 0, demand, at, c.rows);
+            System.arraycopy(c.start, 0, start, at, c.rows);
+            System.arraycopy(c.end, 0, end, at, c.rows);
+            at += c.rows;
+        }
+        // auto ids are numbered across the whole file, in line order
+        for (int i = 0; i < total; i++) {
+            if (ids[i] == null) ids[i] = "i" + (autoId++);
+        }
+        return new ItemStore(ids, x, y, demand, start, end, null);
+    }
+
+    // 1-based line number of a byte offset (error path only)
+    private static long lineNumberAt(FileChannel ch, long offset) throws IOException {
+        long line = 1;
+        ByteBuffer buf = ByteBuffer.allocate(1 << 16);
+        long pos = 0;
+        while (pos < offset) {
+            buf.clear();
+            buf.limit((int) Math.min(buf.capacity(), offset - pos));
+            int r = ch.read(buf, pos);
+            if (r <= 0) break;
+            for (int i = 0; i < r; i++) {
+                if (buf.get(i) == '\n') line++;
+            }
+            pos += r;
+        }
+        return line;
+    }
+
+    /* ---------- byte-level tokens ---------- */
+
+    private static String text(ByteBuffer buf, int from, int to) {
+        byte[] b = new byte[to - from];
+        buf.get(from, b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Plain decimals ([+-]digits[.digits]) with at most 15 significant digits are
+     * computed as mantissa / 10^k, which is exact-rounded and therefore equal to
+     * Double.parseDouble. Anything else (exponents, NaN, long mantissas) falls
+     * back to Double.parseDouble.
+     */
+    static double parseDouble(ByteBuffer buf, int from, int to) {
+        if (from >= to) throw new NumberFormatException("empty");
+        int i = from;
+        boolean neg = false;
+        byte c = buf.get(i);
+        if (c == '-' || c == '+') {
+            neg = (c == '-');
+            i++;
+        }
+        long mant = 0;
+        int digits = 0;
+        int frac = 0;
+        boolean dot = false;
+        boolean any = false;
+        for (; i < to; i++) {
+            c = buf.get(i);
+            if (c >= '0' && c <= '9') {
+                any = true;
+                if (mant == 0 && c == '0') {
+                    if (dot) frac++;
+                    continue; // leading zeros are not significant
+                }
+                if (++digits > 15) return Double.parseDouble(text(buf, from, to));
+                mant = mant * 10 + (c - '0');
+                if (dot) frac++;
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                return Double.parseDouble(text(buf, from, to));
+            }
+        }
+        if (!any) throw new NumberFormatException(text(buf, from, to));
+        if (frac > 22) return Double.parseDouble(text(buf, from, to));
+        double v = (frac == 0) ? (double) mant : mant / POW10[frac];
+        return neg ? -v : v;
+    }
+
+    static int parseInt(ByteBuffer buf, int from, int to) {
+        if (from >= to) throw new NumberFormatException("empty");
+        int i = from;
+        boolean neg = false;
+        byte c = buf.get(i);
+        if (c == '-' || c == '+') {
+            neg = (c == '-');
+            i++;
+        }
+        if (i >= to) throw new NumberFormatException(text(buf, from, to));
+        long v = 0;
+        for (; i < to; i++) {
+            c = buf.get(i);
+            if (c < '0' || c > '9') {
+                // allow integral decimals like "2.0"
+                double d = parseDouble(buf, from, to);
+                if (d != Math.rint(d) || Math.abs(d) > Integer.MAX_VALUE) {
+                    throw new NumberFormatException(text(buf, from, to));
+                }
+                return (int) d;
+            }
+            v = v * 10 + (c - '0');
+            if (v > (long) Integer.MAX_VALUE + 1) throw new NumberFormatException(text(buf, from, to));
+        }
+        long r = neg ? -v : v;
+        if (r > Integer.MAX_VALUE || r < Integer.MIN_VALUE) throw new NumberFormatException(text(buf, from, to));
+        return (int) r;
+    }
+}
@@ -6,6 +6,7 @@ import jade.core.Runtime;
 import jade.wrapper.AgentController;
 import jade.wrapper.ContainerController;
 
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -20,6 +21,16 @@ public final class JadePlatformManager {
 
     private JadePlatformManager() {}
 
+    // MRA solution cache on disk, kept across platform restarts. Override with
+    // -Dvrp.cacheFile=<path>; an empty value keeps the cache in memory only.
+    static String cacheFile() {
+        String p = System.getProperty("vrp.cacheFile");
+        if (p == null) {
+            p = Paths.get(System.getProperty("user.home"), ".vrp-mas", "solution-cache.jsonl").toString();
+        }
+        return p.trim();
+    }
+
     public static synchronized boolean isRunning() {
         return running;
     }
@@ -43,10 +54,11 @@ public final class JadePlatformManager {
         main = runtime.createMainContainer(p);
 
         // 2) Start Master Routing Agent (MRA), tell it which optimization to use
+        //    and where its solution cache lives
         mra = main.createNewAgent(
                 "MRA",
                 "vrp.ManagerAgent",
-                new Object[]{"opt=" + opt}
+                new Object[]{"opt=" + opt, "cacheFile=" + cacheFile()}
         );
         mra.start();
 
@@ -0,0 +1,227 @@
+package vrp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The last dispatched solution, kept by the MRA so single item changes can be
+ * applied without solving again:
+ *  - add:    cheapest feasible insertion over all routes (CheapestInsertion)
+ *  - remove: the stop is spliced out of its route (never breaks feasibility),
+ *            then items left out so far get a chance at the freed routes
+ *  - update: remove + add of the new version
+ *
+ * Every change returns the vehicles whose route changed, so only those DAs get a
+ * new route. Items that fit nowhere stay in the table, unrouted, and are retried
+ * after later removals. Distances come from a lazy oracle: rebuilding a dense
+ * matrix per change would cost more than the repair itself.
+ */
+public final class LiveSolution {
+
+    private final int capacity;
+    private final double dv;
+
+    private List<Item> items;
+    private ItemStore store;
+    private DistanceOracle oracle;
+    private final Map<String, Integer> indexById = new HashMap<>();
+    private int[][] routes;
+
+    /** routes[v] are item indices of store, vehicle v = DA v+1. */
+    public LiveSolution(ItemStore store, List<int[]> routes, int capacity, double dv) {
+        this.capacity = capacity;
+        this.dv = dv;
+        this.routes = routes.toArray(new int[0][]);
+        reindex(new ArrayList<>(store.asList()));
+    }
+
+    // --- State ---
+
+    public ItemStore store() { return store; }
+    public DistanceOracle oracle() { return oracle; }
+    public int vehicles() { return routes.length; }
+    public int[] route(int v) { return routes[v]; }
+
+    public Map<String, int[]> routeIndices() {
+        Map<String, int[]> out = new LinkedHashMap<>();
+        for (int v = 0; v < routes.length; v++) out.put("DA" + (v + 1), routes[v]);
+        return out;
+    }
+
+    public int delivered() {
+        int d = 0;
+        for (int[] r : routes) d += r.length;
+        return d;
+    }
+
+    public double totalDistance() {
+        double t = 0.0;
+        for (int[] r : routes) t += oracle.routeLength(r, r.length);
+        return t;
+    }
+
+    /** Items in the table that no route serves. */
+    public int unrouted() {
+        return store.size() - delivered();
+    }
+
+    // --- Changes ---
+
+    /** New items (an id already present counts as an update). Returns the changed vehicles. */
+    public Set<Integer> add(Collection<Item> added) {
+        List<Item> fresh = new ArrayList<>();
+        List<Item> known = new ArrayList<>();
+        for (Item it : added) {
+            (indexById.containsKey(it.getId()) ? known : fresh).add(it);
+        }
+        Set<Integer> changed = known.isEmpty() ? new TreeSet<>() : update(known);
+        if (fresh.isEmpty()) return changed;
+
+        // appended, so existing indices (and routes) stay valid
+        int first = items.size();
+        List<Item> next = new ArrayList<>(items);
+        next.addAll(fresh);
+        reindex(next);
+
+        int[] idx = new int[fresh.size()];
+        for (int k = 0; k < idx.length; k++) idx[k] = first + k;
+        changed.addAll(insertAll(idx));
+        return changed;
+    }
+
+    /** Drops items by id (unknown ids are ignored). Returns the changed vehicles. */
+    public Set<Integer> remove(Collection<String> ids) {
+        boolean[] gone = new boolean[store.size()];
+        int count = 0;
+        for (String id : ids) {
+            Integer i = indexById.get(id);
+            if (i != null && !gone[i]) {
+                gone[i] = true;
+                count++;
+            }
+        }
+        Set<Integer> changed = new TreeSet<>();
+        if (count == 0) return changed;
+
+        // splice the stops out, then renumber the remaining items
+        int[] newIndex = new int[gone.length];
+        List<Item> next = new ArrayList<>(items.size() - count);
+        for (int i = 0; i < gone.length; i++) {
+            newIndex[i] = gone[i] ? -1 : next.size();
+            if (!gone[i]) next.add(items.get(i));
+        }
+        for (int v = 0; v < routes.length; v++) {
+            int[] r = routes[v];
+            int[] kept = new int[r.length];
+            int len = 0;
+            for (int idx : r) {
+                if (newIndex[idx] >= 0) kept[len++] = newIndex[idx];
+            }
+            if (len < r.length) changed.add(v);
+            routes[v] = Arrays.copyOf(kept, len);
+        }
+        reindex(next);
+
+        // freed capacity / distance: give the unrouted items another chance
+        changed.addAll(insertAll(unroutedIndices()));
+        return changed;
+    }
+
+    /** Replaces items by id (unknown ids are added). Returns the changed vehicles. */
+    public Set<Integer> update(Collection<Item> updated) {
+        Set<Integer> changed = new TreeSet<>();
+        List<Item> next = new ArrayList<>(items);
+        List<Item> fresh = new ArrayList<>();
+        Set<Integer> moved = new HashSet<>();
+        for (Item it : updated) {
+            Integer i = indexById.get(it.getId());
+            if (i == null) {
+                fresh.add(it);
+                continue;
+            }
+            next.set(i, it);
+            moved.add(i);
+        }
+
+        // take the old versions off their routes; same indices, new values
+        for (int v = 0; v < routes.length; v++) {
+            int[] r = routes[v];
+            int[] kept = new int[r.length];
+            int len = 0;
+            for (int idx : r) {
+                if (!moved.contains(idx)) kept[len++] = idx;
+            }
+            if (len < r.length) changed.add(v);
+            routes[v] = Arrays.copyOf(kept, len);
+        }
+        reindex(next);
+
+        int[] idx = moved.stream().mapToInt(Integer::intValue).sorted().toArray();
+        changed.addAll(insertAll(idx));
+        // a smaller or looser item may leave room for ones that did not fit before
+        changed.addAll(insertAll(unroutedIndices()));
+        if (!fresh.isEmpty()) changed.addAll(add(fresh));
+        return changed;
+    }
+
+    // --- Internals ---
+
+    // Cheapest feasible insertion of each item over all routes, closest to the depot first
+    private Set<Integer> insertAll(int[] idx) {
+        Set<Integer> changed = new TreeSet<>();
+        if (idx.length == 0) return changed;
+
+        CheapestInsertion[] builders = new CheapestInsertion[routes.length];
+        for (int v = 0; v < routes.length; v++) {
+            builders[v] = new CheapestInsertion(store, oracle, capacity, dv, routes[v], routes[v].length);
+        }
+
+        Integer[] order = Arrays.stream(idx).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, (a, b) -> Double.compare(oracle.depot(a), oracle.depot(b)));
+        for (int i : order) {
+            int best = -1;
+            double bestCost = Double.POSITIVE_INFINITY;
+            for (int v = 0; v < builders.length; v++) {
+                double c = builders[v].cost(i);
+                if (c < bestCost) {
+                    bestCost = c;
+                    best = v;
+                }
+            }
+            if (best >= 0 && builders[best].insert(i)) changed.add(best);
+        }
+
+        for (int v : changed) routes[v] = builders[v].route();
+        return changed;
+    }
+
+    private int[] unroutedIndices() {
+        boolean[] routed = new boolean[store.size()];
+        for (int[] r : routes) {
+            for (int idx : r) routed[idx] = true;
+        }
+        int[] out = new int[store.size()];
+        int len = 0;
+        for (int i = 0; i < routed.length; i++) {
+            if (!routed[i]) out[len++] = i;
+        }
+        return Arrays.copyOf(out, len);
+    }
+
+    // the store keeps a reference to its list, so every change builds a new one
+    private void reindex(List<Item> next) {
+        items = next;
+        store = ItemStore.of(next);
+        oracle = DistanceOracle.lazy(store);
+        indexById.clear();
+        for (int i = 0; i < next.size(); i++) indexById.put(next.get(i).getId(), i);
+    }
+}
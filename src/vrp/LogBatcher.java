@@ -0,0 +1,188 @@
+package vrp;
+
+import jade.core.AID;
+import jade.core.Agent;
+import jade.core.behaviours.Behaviour;
+import jade.core.behaviours.TickerBehaviour;
+import jade.lang.acl.ACLMessage;
+
+import com.google.gson.Gson;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-agent log buffer. Records are collected and sent to the GUI agent as one
+ * "log-batch" message when the batch is full or has waited maxDelayMs, instead
+ * of one ACL message (and one console write) per line.
+ *
+ * Each record has a level; records below the threshold are dropped before any
+ * string is built. The threshold is the agent's default, or a per-request
+ * verbosity set with {@link #setVerbosity} while that request is running.
+ *
+ * Safe to call from any thread (the MRA logs from its solver pool).
+ */
+public final class LogBatcher {
+
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    // One log line; request is null for agent-level messages
+    public static class Record {
+        public long time;
+        public Level level;
+        public String request;
+        public String text;
+    }
+
+    // Agent -> GUI (log-batch)
+    public static class Batch {
+        public String agent;
+        public List<Record> records;
+    }
+
+    private final Agent agent;
+    private final String receiver;
+    private final int maxRecords;
+    private final int maxChars;
+    private final long maxDelayMs;
+    private final Gson gson = new Gson();
+
+    private volatile Level threshold = Level.INFO;
+    private final Map<String, Level> verbosity = new ConcurrentHashMap<>();
+
+    // guarded by this
+    private List<Record> pending = new ArrayList<>();
+    private int pendingChars;
+    private long oldest;
+
+    public LogBatcher(Agent agent, String receiver, int maxRecords, int maxChars, long maxDelayMs) {
+        this.agent = agent;
+        this.receiver = receiver;
+        this.maxRecords = Math.max(1, maxRecords);
+        this.maxChars = Math.max(1, maxChars);
+        this.maxDelayMs = Math.max(0, maxDelayMs);
+    }
+
+    /** Batches of up to 200 records / 64k chars, at most 250 ms late. */
+    public LogBatcher(Agent agent, String receiver) {
+        this(agent, receiver, 200, 64 * 1024, 250);
+    }
+
+    // --- Levels ---
+
+    public void setThreshold(Level level) {
+        if (level != null) threshold = level;
+    }
+
+    /** Level used for records of this request until {@link #clearVerbosity}. */
+    public void setVerbosity(String request, Level level) {
+        if (request != null && level != null) verbosity.put(request, level);
+    }
+
+    public void clearVerbosity(String request) {
+        if (request != null) verbosity.remove(request);
+    }
+
+    /** Lets callers skip building records (e.g. per-item dumps) nobody will see. */
+    public boolean isEnabled(Level level, String request) {
+        Level min = (request == null) ? null : verbosity.get(request);
+        return level.compareTo(min == null ? threshold : min) >= 0;
+    }
+
+    /** Level name sent by the GUI (case-insensitive); null when missing or unknown. */
+    public static Level parseLevel(String s) {
+        if (s == null) return null;
+        try {
+            return Level.valueOf(s.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // --- Logging ---
+
+    public void log(Level level, String request, String text) {
+        if (!isEnabled(level, request)) return;
+
+        Record r = new Record();
+        r.time = System.currentTimeMillis();
+        r.level = level;
+        r.request = request;
+        r.text = text;
+
+        List<Record> full = null;
+        synchronized (this) {
+            if (pending.isEmpty()) oldest = r.time;
+            pending.add(r);
+            pendingChars += (text == null) ? 0 : text.length();
+            if (pending.size() >= maxRecords || pendingChars >= maxChars) {
+                full = takePending();
+            }
+        }
+        if (full != null) send(full);
+    }
+
+    public void info(String text) {
+        log(Level.INFO, null, text);
+    }
+
+    /** Sends whatever is buffered, now. */
+    public void flush() {
+        List<Record> out;
+        synchronized (this) {
+            if (pending.isEmpty()) return;
+            out = takePending();
+        }
+        send(out);
+    }
+
+    /** Flushes the tail of a quiet period; add it to the owning agent once. */
+    public Behaviour flusher() {
+        return new TickerBehaviour(agent, Math.max(10, maxDelayMs / 2)) {
+            @Override
+            protected void onTick() {
+                List<Record> out = null;
+                synchronized (LogBatcher.this) {
+                    if (!pending.isEmpty() && System.currentTimeMillis() - oldest >= maxDelayMs) {
+                        out = takePending();
+                    }
+                }
+                if (out != null) send(out);
+            }
+        };
+    }
+
+    // caller holds the lock
+    private List<Record> takePending() {
+        List<Record> out = pending;
+        pending = new ArrayList<>();
+        pendingChars = 0;
+        return out;
+    }
+
+    // One console write and one ACL message per batch
+    private void send(List<Record> records) {
+        StringBuilder sb = new StringBuilder();
+        for (Record r : records) {
+            sb.append(format(r)).append(System.lineSeparator());
+        }
+        System.out.print(sb);
+
+        Batch b = new Batch();
+        b.agent = agent.getLocalName();
+        b.records = records;
+
+        ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
+        msg.setConversationId("log-batch");
+        msg.addReceiver(new AID(receiver, AID.ISLOCALNAME));
+        msg.setContent(gson.toJson(b));
+        agent.send(msg);
+    }
+
+    /** Display form of a record: INFO lines as-is, other levels tagged. */
+    public static String format(Record r) {
+        return (r.level == null || r.level == Level.INFO) ? r.text : "[" + r.level + "] " + r.text;
+    }
+}
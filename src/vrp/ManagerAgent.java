@@ -3,14 +3,20 @@ package vrp;
 import jade.core.AID;
 import jade.core.Agent;
 import jade.core.behaviours.CyclicBehaviour;
+import jade.core.behaviours.WakerBehaviour;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
 
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ManagerAgent extends Agent {
 
@@ -19,9 +25,65 @@ public class ManagerAgent extends Agent {
 
     private final Gson gson = new Gson();
 
-    // current optimisation technique ("GREEDY" or "GA")
+    // current optimisation technique ("GREEDY", "GA", "ISLAND", "CLUSTER" or "CNET")
     private String opt = "GREEDY";
 
+    // GA budget, shared by the central GA and by each island. The run stops at
+    // whichever comes first: the generation cap, the wall-clock budget, or
+    // stallGenerations generations without improvement (0 disables the latter two).
+    // Budget and stall limit can also be sent per request by the GUI.
+    private int gaGenerations = 200;
+    private int gaPopSize = 40;
+    private long gaTimeBudgetMs = 5000;
+    private int gaStallGenerations = 50;
+
+    // GA runs push improved incumbents to the requester at most this often (0 = never)
+    private long progressIntervalMs = 500;
+
+    // ISLAND mode: how often islands send elites to their neighbour, and how many
+    private int migrationInterval = 10;
+    private int migrants = 2;
+
+    // How long to wait for DA replies beyond the run's own time budget. When it
+    // runs out the job goes on with the replies it has (see the *Overdue methods);
+    // an undeliverable message (AMS FAILURE) counts as a reply right away.
+    private long replyTimeoutMs = 30000;
+
+    // ISLAND jobs waiting for island-result messages, by job id
+    private final Map<String, IslandJob> islandJobs = new HashMap<>();
+
+    // CLUSTER jobs waiting for cluster-result messages, by job id
+    private final Map<String, ClusterJob> clusterJobs = new HashMap<>();
+
+    // CNET auctions in progress, by job id, and how many items each call announces
+    private final Map<String, CnetJob> cnetJobs = new HashMap<>();
+    private int cnetBatch = ContractNet.DEFAULT_BATCH;
+    private int jobCounter = 0;
+
+    // Optimisations run on this pool so a long GA never blocks the agent's own
+    // thread; finished solves come back through the O2A queue (see section 6)
+    private int solverThreads = 2;
+    private ExecutorService solver;
+
+    // optimize-requests not yet answered, by request id (only touched on the agent thread)
+    private final Map<String, InFlight> inFlight = new LinkedHashMap<>();
+    private int requestCounter = 0;
+
+    // Last dispatched solution, kept for item-add / item-remove / item-update.
+    // liveDas[v] is the DA that drives route v; liveOwner asked for the solve.
+    private LiveSolution live;
+    private List<String> liveDas;
+    private AID liveOwner;
+
+    // Finished solutions by problem fingerprint (see SolutionCache); a repeated
+    // request is answered from here. Size 0 disables it; the file is optional.
+    private int cacheSize = 64;
+    private String cacheFile;
+    private SolutionCache cache;
+
+    // log lines for the GUI, sent in batches (see sendLog)
+    private LogBatcher logs;
+
     /* ================== Helper classes ================== */
 
     static class VehicleInfo {
@@ -45,11 +107,190 @@ public class ManagerAgent extends Agent {
         }
     }
 
+    /* ================== ISLAND mode messages ================== */
+
+    // MRA -> DA (island-start): one GA sub-population to evolve
+    public static class IslandTask {
+        public String job;
+        public List<Item> items;
+        public int numVehicles;
+        public int capacity;
+        public double dv;
+        public int generations;
+        public int popSize;
+        public long timeBudgetMs;    // 0 = no deadline
+        public int stallGenerations; // 0 = never stop early for lack of progress
+        public long seed;
+        public int migrationInterval;
+        public int migrants;
+        public String next;          // neighbour island in the ring (receives our elites)
+    }
+
+    // MRA -> GUI (optimization-progress): current best of a running GA. Routes are
+    // only filled when the request asked for them (user parameter progressRoutes=true):
+    // as items with the JSON codec, otherwise encoded by the request's codec in routeData.
+    public static class Progress {
+        public int generation;
+        public double fitness;
+        public int delivered;
+        public double totalDistance;
+        public Map<String, List<Item>> routes;
+        public String routeData;
+    }
+
+    // DA -> DA (migration): elite chromosomes, as item indices of the task's item list
+    public static class Migration {
+        public String job;
+        public int generation;
+        public int[][] chromosomes;
+    }
+
+    // DA -> MRA (island-result): the island's best chromosome after its last generation
+    public static class IslandResult {
+        public String job;
+        public String island;
+        public int generations;
+        public SimpleGAOptimizer.StopReason stopReason;
+        public double fitness;
+        public int[] chromosome;
+    }
+
+    // An optimize-request handed to the worker pool. The cancel flag and the GA
+    // are read across threads, everything else stays on the agent thread.
+    private static class InFlight {
+        String id;
+        ACLMessage request;
+        String technique;
+        Future<?> future;
+        String islandJob;                // ISLAND: job whose islands are evolving
+        String cacheKey;                 // problem fingerprint, set once the items are parsed
+        volatile boolean cancelled;
+        volatile SimpleGAOptimizer ga;   // set while a GA runs, so a cancel can reach it
+    }
+
+    /* ================== CLUSTER mode messages ================== */
+
+    // MRA -> DA (cluster-start): the items of this DA's cluster, routed as one vehicle
+    public static class ClusterTask {
+        public String job;
+        public List<Item> items;
+        public int capacity;
+        public double dv;
+    }
+
+    // DA -> MRA (cluster-result): the DA's route, as positions in its task's item list
+    public static class ClusterResult {
+        public String job;
+        public String agent;
+        public int[] route;
+        public double distance;
+    }
+
+    // MRA-side state of a running CLUSTER optimisation
+    private static class ClusterJob {
+        InFlight owner;
+        ItemStore store;
+        DistanceOracle oracle;
+        int cap;
+        double dv;
+        List<String> das;
+        int[][] members;                  // global item indices of each DA's cluster
+        int[][] routes;                   // filled in as cluster-results arrive
+        boolean[] replied;                // DA sent its route (or could not be reached)
+        boolean[] missing;                // no route from this DA: its cluster is repaired elsewhere
+        int pending;
+        WakerBehaviour deadline;
+    }
+
+    /* ================== CNET mode messages ================== */
+
+    // MRA -> DA (CFP): items up for auction, as indices of the job's item table.
+    // The first call of a job also carries the table and the vehicle limits.
+    public static class CnetCall {
+        public String job;
+        public int round;
+        public List<Item> items;
+        public int capacity;
+        public double dv;
+        public int[] batch;
+    }
+
+    // DA -> MRA (PROPOSE): insertion cost of each batch item, ContractNet.NO_BID where infeasible
+    public static class CnetBid {
+        public String job;
+        public int round;
+        public double[] costs;
+    }
+
+    // MRA -> DA (ACCEPT_PROPOSAL): the items this DA won, cheapest bid first
+    public static class CnetAward {
+        public String job;
+        public int round;
+        public int[] items;
+    }
+
+    // DA -> MRA (INFORM): where each won item went, in insertion order, and the
+    // ones that no longer fitted after the earlier insertions
+    public static class CnetDone {
+        public String job;
+        public int round;
+        public int[] inserted;
+        public int[] positions;
+        public int[] failed;
+    }
+
+    // MRA-side state of a running CNET auction
+    private static class CnetJob {
+        String id;
+        InFlight owner;
+        ItemStore store;
+        DistanceOracle oracle;
+        int cap;
+        double dv;
+        int batchSize;
+        List<String> das;
+        int[] order;                      // announcement order
+        int next;                         // next position in order
+        final Deque<Integer> again = new ArrayDeque<>();   // awards that did not fit
+        int round;
+        int[] batch;
+        double[][] bids;                  // this round, by DA; null = refused
+        int[][] awarded;                  // this round, by DA; null = nothing won
+        boolean awarding;                 // waiting for INFORMs rather than bids
+        boolean[] answered;               // by DA, in the current phase
+        boolean[] gone;                   // DAs dropped from the auction (unreachable or overdue)
+        int pendingBids;
+        int pendingAwards;
+        WakerBehaviour deadline;
+        int[][] routes;                   // mirror of each DA's route
+        int[] lengths;
+        int reannounced;
+    }
+
+    // MRA-side state of a running ISLAND optimisation
+    private static class IslandJob {
+        InFlight owner;
+        List<String> islands;
+        ACLMessage request;
+        ItemStore store;
+        DistanceOracle oracle;
+        int numDAs;
+        int cap;
+        double dv;
+        int expected;
+        final List<IslandResult> results = new ArrayList<>();
+        final Set<String> replied = new HashSet<>();   // islands that reported or could not be reached
+        WakerBehaviour deadline;
+        boolean overtime;                 // stragglers were told to stop; next deadline closes the job
+    }
+
     /* ================== Agent setup ================== */
 
     @Override
     protected void setup() {
         // Read optional "opt=..." arg passed from JadePlatformManager when creating MRA
+        logs = new LogBatcher(this, "GUI");
+
         Object[] args = getArguments();
         if (args != null) {
             for (Object a : args) {
@@ -57,7 +298,48 @@ public class ManagerAgent extends Agent {
                 if (s.toLowerCase().startsWith("opt=")) {
                     opt = s.substring(4).trim().toUpperCase();
                 }
+                if (s.startsWith("logLevel=")) {
+                    logs.setThreshold(LogBatcher.parseLevel(s.substring(9)));
+                }
+                if (s.startsWith("cacheFile=") && s.length() > 10) {
+                    cacheFile = s.substring(10).trim();
+                }
+                try {
+                    if (s.startsWith("generations=")) gaGenerations = Integer.parseInt(s.substring(12).trim());
+                    if (s.startsWith("popSize=")) gaPopSize = Integer.parseInt(s.substring(8).trim());
+                    if (s.startsWith("timeBudgetMs=")) gaTimeBudgetMs = Long.parseLong(s.substring(13).trim());
+                    if (s.startsWith("stallGenerations=")) gaStallGenerations = Integer.parseInt(s.substring(17).trim());
+                    if (s.startsWith("progressIntervalMs=")) progressIntervalMs = Long.parseLong(s.substring(19).trim());
+                    if (s.startsWith("migrationInterval=")) migrationInterval = Integer.parseInt(s.substring(18).trim());
+                    if (s.startsWith("migrants=")) migrants = Integer.parseInt(s.substring(9).trim());
+                    if (s.startsWith("solverThreads=")) solverThreads = Integer.parseInt(s.substring(14).trim());
+                    if (s.startsWith("cnetBatch=")) cnetBatch = Integer.parseInt(s.substring(10).trim());
+                    if (s.startsWith("cacheSize=")) cacheSize = Integer.parseInt(s.substring(10).trim());
+                    if (s.startsWith("replyTimeoutMs=")) replyTimeoutMs = Long.parseLong(s.substring(15).trim());
+                } catch (NumberFormatException ignored) {
+                    // keep the default for a malformed value
+                }
+            }
+        }
+
+        AtomicInteger threadNo = new AtomicInteger();
+        solver = Executors.newFixedThreadPool(Math.max(1, solverThreads), r -> {
+            Thread t = new Thread(r, getLocalName() + "-solver-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        // workers hand finished solves back to the agent thread as Runnables
+        setEnabledO2ACommunication(true, 0);
+        addBehaviour(logs.flusher());
+
+        cache = new SolutionCache(cacheSize, (cacheFile == null) ? null : Paths.get(cacheFile));
+        try {
+            int loaded = cache.open();
+            if (cacheFile != null && cacheSize > 0) {
+                sendLog("MRA: solution cache " + cacheFile + " (" + loaded + " entries loaded)");
             }
+        } catch (IOException | RuntimeException e) {
+            sendLog(LogBatcher.Level.WARN, null, "MRA: solution cache file not usable, memory only — " + e.getMessage());
         }
 
         sendLog("MRA: started with technique " + opt);
@@ -121,7 +403,76 @@ public class ManagerAgent extends Agent {
                     return;
                 }
 
-                /* ========== 3) Handle optimize-request from GUI agent ========== */
+                /* ========== 3) Collect island results (ISLAND mode) ========== */
+
+                MessageTemplate mtIsland = MessageTemplate.and(
+                        MessageTemplate.MatchPerformative(ACLMessage.INFORM),
+                        MessageTemplate.MatchConversationId("island-result")
+                );
+                ACLMessage islandMsg = myAgent.receive(mtIsland);
+                if (islandMsg != null) {
+                    handleIslandResult(islandMsg);
+                    return;
+                }
+
+                /* ========== 3b) Collect cluster routes (CLUSTER mode) ========== */
+
+                MessageTemplate mtCluster = MessageTemplate.and(
+                        MessageTemplate.MatchPerformative(ACLMessage.INFORM),
+                        MessageTemplate.MatchConversationId("cluster-result")
+                );
+                ACLMessage clusterMsg = myAgent.receive(mtCluster);
+                if (clusterMsg != null) {
+                    handleClusterResult(clusterMsg);
+                    return;
+                }
+
+                /* ========== 3c) Contract-net replies: bids, refusals, insertions (CNET mode) ========== */
+
+                ACLMessage cnetMsg = myAgent.receive(MessageTemplate.and(
+                        MessageTemplate.MatchConversationId("cnet"),
+                        MessageTemplate.or(
+                                MessageTemplate.MatchPerformative(ACLMessage.PROPOSE),
+                                MessageTemplate.or(
+                                        MessageTemplate.MatchPerformative(ACLMessage.REFUSE),
+                                        MessageTemplate.MatchPerformative(ACLMessage.INFORM)))
+                ));
+                if (cnetMsg != null) {
+                    handleCnet(cnetMsg);
+                    return;
+                }
+
+                /* ========== 3e) Messages the platform could not deliver to a DA ========== */
+
+                ACLMessage undelivered = myAgent.receive(MessageTemplate.and(
+                        MessageTemplate.MatchPerformative(ACLMessage.FAILURE),
+                        MessageTemplate.or(
+                                MessageTemplate.MatchConversationId("island-start"),
+                                MessageTemplate.or(
+                                        MessageTemplate.MatchConversationId("cluster-start"),
+                                        MessageTemplate.MatchConversationId("cnet")))
+                ));
+                if (undelivered != null) {
+                    handleUndelivered(undelivered);
+                    return;
+                }
+
+                /* ========== 3d) Incremental changes to the last solution ========== */
+
+                ACLMessage changeMsg = myAgent.receive(MessageTemplate.and(
+                        MessageTemplate.MatchPerformative(ACLMessage.REQUEST),
+                        MessageTemplate.or(
+                                MessageTemplate.MatchConversationId("item-add"),
+                                MessageTemplate.or(
+                                        MessageTemplate.MatchConversationId("item-remove"),
+                                        MessageTemplate.MatchConversationId("item-update")))
+                ));
+                if (changeMsg != null) {
+                    handleItemChange(changeMsg);
+                    return;
+                }
+
+                /* ========== 4) Handle optimize-request from GUI agent ========== */
 
                 MessageTemplate mtOpt = MessageTemplate.and(
                         MessageTemplate.MatchPerformative(ACLMessage.REQUEST),
@@ -137,148 +488,1231 @@ public class ManagerAgent extends Agent {
                         fail.setContent("No DAs registered.");
                         myAgent.send(fail);
 
-                        sendLog("MRA: optimization aborted — no DAs registered.");
+                        sendLog(LogBatcher.Level.WARN, null, "MRA: optimization aborted — no DAs registered.");
                         return;
                     }
 
-                    // parse the list of Item objects from the GUI request
-                    Type listType = new TypeToken<List<Item>>() {}.getType();
-                    List<Item> items = gson.fromJson(optMsg.getContent(), listType);
-
-                    int numDAs = vehicles.size();
-                    int cap = vehicles.values().iterator().next().cap;
-                    double dv = vehicles.values().iterator().next().dv;
-
-                    sendLog(String.format(
-                            "GUI → MRA: optimize-request (items=%d, DAs=%d, cap=%d, dv=%.0f, opt=%s)",
-                            items.size(), numDAs, cap, dv, opt
-                    ));
-
-                    // ========== NEW FOR RESEARCH EXTENSION (VRPTW logging) ==========
-                    // We log the time window of each item. This proves that we are
-                    // doing Vehicle Routing Problem with Time Windows, not just plain VRP.
-                    for (Item it : items) {
-                        sendLog(
-                                "Item " + it.getId()
-                                        + " TW=[" + it.getStartTime()
-                                        + "," + it.getEndTime() + "]"
-                        );
-                    }
-                    // ===============================================================
+                    // the solve runs on the worker pool; this thread goes straight
+                    // back to serving registrations, cancels and further requests
+                    submitSolve(optMsg);
+                    return;
+                }
 
-                    Map<String, List<Item>> resultRoutes;
-                    int delivered;
-                    double totalDistance;
+                /* ========== 5) Cancel a running optimisation ========== */
 
-                    // choose algorithm: GA vs Greedy
-                    if ("GA".equalsIgnoreCase(opt)) {
+                MessageTemplate mtCancel = MessageTemplate.and(
+                        MessageTemplate.MatchPerformative(ACLMessage.CANCEL),
+                        MessageTemplate.MatchConversationId("cancel-request")
+                );
+                ACLMessage cancelMsg = myAgent.receive(mtCancel);
+                if (cancelMsg != null) {
+                    handleCancel(cancelMsg);
+                    return;
+                }
 
-                        // --- Genetic Algorithm path with time windows ---
-                        SimpleGAOptimizer ga = new SimpleGAOptimizer();
-                        SimpleGAOptimizer.Result gaRes =
-                                ga.solve(items, numDAs, cap, dv, 200, 40);
+                /* ========== 6) Finish solves handed back by the worker pool ========== */
 
-                        // Convert GA result to DA-name map like { "DA1": [...], "DA2": [...] }
-                        resultRoutes = new LinkedHashMap<>();
-                        for (int i = 0; i < gaRes.routes.size(); i++) {
-                            resultRoutes.put("DA" + (i + 1), gaRes.routes.get(i));
-                        }
+                Object done = myAgent.getO2AObject();
+                if (done instanceof Runnable) {
+                    ((Runnable) done).run();
+                    return;
+                }
 
-                        delivered = gaRes.itemsDelivered;
-                        totalDistance = gaRes.totalDistance;
+                // If we didn't handle any message above, block()
+                block();
+            }
+        });
+    }
 
-                        sendLog("MRA: ✅ Optimization done (GA). Delivered=" + delivered +
-                                "  TotalDist=" + String.format("%.1f", totalDistance));
+    @Override
+    protected void takeDown() {
+        for (InFlight job : inFlight.values()) {
+            job.cancelled = true;
+            SimpleGAOptimizer ga = job.ga;
+            if (ga != null) ga.cancel();
+        }
+        if (solver != null) solver.shutdownNow();
+        if (cache != null) {
+            cache.close();
+            sendLog("MRA: solution cache " + cache.stats());
+        }
+        logs.flush();
+    }
 
-                    } else {
+    /* ================== Worker pool ================== */
 
-                        // --- Greedy path with time windows ---
-                        GreedyOptimizer.Result grRes =
-                                GreedyOptimizer.solve(items, numDAs, cap, dv);
+    // Register the request and queue its solve. Everything the worker needs from
+    // agent state is copied here, so a later set-technique or registration does
+    // not change a request that is already in flight.
+    private void submitSolve(ACLMessage request) {
+        InFlight job = new InFlight();
+        job.id = requestIdOf(request);
+        job.request = request;
+        job.technique = opt;
 
-                        resultRoutes = grRes.routes;
-                        delivered = grRes.delivered;
-                        totalDistance = grRes.totalDistance;
+        if (inFlight.containsKey(job.id)) {
+            ACLMessage fail = request.createReply();
+            fail.setPerformative(ACLMessage.FAILURE);
+            fail.setContent("Request " + job.id + " is already running.");
+            send(fail);
+            return;
+        }
 
-                        sendLog("MRA: ✅ Optimization done (Greedy). Delivered=" + delivered +
-                                "  TotalDist=" + String.format("%.1f", totalDistance));
-                    }
+        int numDAs = vehicles.size();
+        int cap = vehicles.values().iterator().next().cap;
+        double dv = vehicles.values().iterator().next().dv;
 
-                    // Send each DA their individual route (as RouteInfo JSON)
-                    List<String> daNames = new ArrayList<>(vehicles.keySet());
-                    int idx = 0;
+        // per-request verbosity, e.g. logLevel=DEBUG for the per-item time-window dump
+        logs.setVerbosity(job.id, LogBatcher.parseLevel(request.getUserDefinedParameter("logLevel")));
 
-                    for (Map.Entry<String, List<Item>> e : resultRoutes.entrySet()) {
-                        String daName = (idx < daNames.size()) ? daNames.get(idx++) : e.getKey();
-                        List<Item> route = e.getValue();
-                        double rd = computeRouteDistance(route);
+        inFlight.put(job.id, job);
+        job.future = solver.submit(() -> runSolve(job, numDAs, cap, dv));
+        sendLog(LogBatcher.Level.INFO, job.id,
+                "MRA: request " + job.id + " queued (" + inFlight.size() + " in flight)");
+    }
 
-                        // Build payload and send ACLMessage to that DA
-                        RouteInfo payload = new RouteInfo(route, rd);
+    // Runs on a worker thread: parse, build the distance matrix and solve.
+    // Agent state (vehicles, inFlight, islandJobs) is only touched from the
+    // Runnables passed to onAgentThread.
+    private void runSolve(InFlight job, int numDAs, int cap, double dv) {
+        try {
+            if (job.cancelled) {
+                onAgentThread(() -> finishCancelled(job));
+                return;
+            }
 
-                        ACLMessage daMsg = new ACLMessage(ACLMessage.INFORM);
-                        daMsg.setConversationId("route");
-                        daMsg.addReceiver(new AID(daName, AID.ISLOCALNAME));
-                        daMsg.setContent(gson.toJson(payload));
-                        myAgent.send(daMsg);
+            // parse the list of Item objects from the GUI request (in the codec it chose)
+            List<Item> items = codecOf(job.request).decodeItems(job.request.getContent());
 
-                        sendLog("MRA → " + daName + ": route of " + route.size() +
-                                " items, dist=" + String.format("%.1f", rd));
-                    }
+            sendLog(LogBatcher.Level.INFO, job.id, String.format(
+                    "GUI → MRA: optimize-request %s (items=%d, DAs=%d, cap=%d, dv=%.0f, opt=%s)",
+                    job.id, items.size(), numDAs, cap, dv, job.technique
+            ));
 
-                    // Reply back to GUI agent so that the Swing UI can draw routes
-                    ACLMessage guiReply = optMsg.createReply();
-                    guiReply.setPerformative(ACLMessage.INFORM);
-                    guiReply.setConversationId("optimization-result");
-                    guiReply.setContent(gson.toJson(resultRoutes));
-                    guiReply.addUserDefinedParameter(
-                            "status",
-                            "Delivered: " + delivered +
-                                    " • Total distance: " + String.format("%.1f", totalDistance)
+            // ========== NEW FOR RESEARCH EXTENSION (VRPTW logging) ==========
+            // We log the time window of each item. This proves that we are
+            // doing Vehicle Routing Problem with Time Windows, not just plain VRP.
+            // One line per item, so DEBUG: only built when the request asks for it.
+            if (logs.isEnabled(LogBatcher.Level.DEBUG, job.id)) {
+                for (Item it : items) {
+                    sendLog(LogBatcher.Level.DEBUG, job.id,
+                            "Item " + it.getId()
+                                    + " TW=[" + it.getStartTime()
+                                    + "," + it.getEndTime() + "]"
                     );
-                    myAgent.send(guiReply);
+                }
+            }
+            // ===============================================================
 
-                    sendLog("MRA: results sent to GUI.");
+            // columnar items + all pairwise distances for this request,
+            // shared by the optimizer and the per-route stats below
+            ItemStore store = ItemStore.of(items);
 
-                    return;
+            // the same problem solved before: answer from the cache, no distance matrix
+            long lookupStart = System.nanoTime();
+            job.cacheKey = !reproducible(job.technique, job.request) ? null
+                    : SolutionCache.fingerprint(store, job.technique, numDAs, cap, dv,
+                            job.request.getUserDefinedParameter("seed"), budgetOf(job.technique, job.request));
+            SolutionCache.Entry hit = (job.cacheKey == null) ? null : cache.get(job.cacheKey);
+            if (hit != null) {
+                long us = (System.nanoTime() - lookupStart) / 1000;
+                sendLog(LogBatcher.Level.INFO, job.id, "MRA: ⚡ cache hit for " + job.id + " (" + job.technique +
+                        ", " + us + " µs). Delivered=" + hit.delivered +
+                        "  TotalDist=" + String.format("%.1f", hit.totalDistance) + "  Cache: " + cache.stats());
+                DistanceOracle lazy = DistanceOracle.lazy(store);
+                onAgentThread(() -> {
+                    finished(job);
+                    dispatchResult(job.request, store, lazy, hit.routes, hit.delivered, hit.totalDistance);
+                });
+                return;
+            }
+            if (job.cacheKey != null) {
+                sendLog(LogBatcher.Level.DEBUG, job.id, "MRA: cache miss for " + job.id + ". Cache: " + cache.stats());
+            }
+
+            DistanceOracle oracle = DistanceOracle.of(store);
+
+            // ISLAND: the DAs evolve the sub-populations; the reply goes out
+            // once every island has reported (see handleIslandResult)
+            if ("ISLAND".equalsIgnoreCase(job.technique)) {
+                onAgentThread(() -> startIslands(job, items, store, oracle, numDAs, cap, dv));
+                return;
+            }
+
+            // CLUSTER: partition here, each DA routes its own cluster; the reply goes
+            // out after the repair round (see handleClusterResult)
+            if ("CLUSTER".equalsIgnoreCase(job.technique)) {
+                long seed = parseSeed(job.request.getUserDefinedParameter("seed"));
+                int[] clusterOf = ClusterSolver.partition(store, numDAs, cap, seed);
+                int[][] members = ClusterSolver.members(clusterOf, numDAs);
+                onAgentThread(() -> startClusters(job, store, oracle, members, cap, dv));
+                return;
+            }
+
+            // CNET: the DAs bid for batches of items; the reply goes out when the
+            // last batch is awarded (see handleCnet)
+            if ("CNET".equalsIgnoreCase(job.technique)) {
+                int[] order = ContractNet.announceOrder(store, oracle);
+                int batch = cnetBatchOf(job.request);
+                onAgentThread(() -> startAuction(job, store, oracle, order, cap, dv, batch));
+                return;
+            }
+
+            Map<String, int[]> resultRoutes;
+            int delivered;
+            double totalDistance;
+
+            // choose algorithm: GA vs Greedy
+            if ("GA".equalsIgnoreCase(job.technique)) {
+
+                // --- Genetic Algorithm path with time windows ---
+                // seeded from the GUI's Seed field when present -> reproducible runs
+                long seed = parseSeed(job.request.getUserDefinedParameter("seed"));
+                SimpleGAOptimizer ga = new SimpleGAOptimizer(seed, ForkJoinPool.commonPool());
+                ga.setProgressListener(progressSender(job.request));
+                // publish before re-checking, so a cancel racing with this line is never lost
+                job.ga = ga;
+                if (job.cancelled) ga.cancel();
+
+                SimpleGAOptimizer.Result gaRes = ga.solve(store, oracle, numDAs, cap, dv,
+                        gaGenerations, gaPopSize,
+                        timeBudgetOf(job.request), stallGenerationsOf(job.request));
+
+                // Convert GA result to DA-name map like { "DA1": [...], "DA2": [...] }
+                resultRoutes = new LinkedHashMap<>();
+                for (int i = 0; i < gaRes.routeIndices.size(); i++) {
+                    resultRoutes.put("DA" + (i + 1), gaRes.routeIndices.get(i));
                 }
 
-                // If we didn't handle any message above, block()
-                block();
+                delivered = gaRes.itemsDelivered;
+                totalDistance = gaRes.totalDistance;
+
+                sendLog(LogBatcher.Level.INFO, job.id,
+                        "MRA: ✅ Optimization done (GA, " + job.id + "). Delivered=" + delivered +
+                        "  TotalDist=" + String.format("%.1f", totalDistance) +
+                        "  Generations=" + gaRes.generations + " (" + gaRes.stopReason + ")" +
+                        "  FitnessCache=" + gaRes.cacheHits + " hits/" + gaRes.cacheMisses + " misses");
+
+            } else {
+
+                // --- Greedy path with time windows ---
+                GreedyOptimizer.Result grRes =
+                        GreedyOptimizer.solve(store, oracle, numDAs, cap, dv);
+
+                resultRoutes = grRes.routeIndices;
+                delivered = grRes.delivered;
+                totalDistance = grRes.totalDistance;
+
+                sendLog(LogBatcher.Level.INFO, job.id,
+                        "MRA: ✅ Optimization done (Greedy, " + job.id + "). Delivered=" + delivered +
+                        "  TotalDist=" + String.format("%.1f", totalDistance));
             }
-        });
+
+            onAgentThread(() -> complete(job, store, oracle, resultRoutes, delivered, totalDistance));
+
+        } catch (Throwable e) {
+            // Errors too (an OutOfMemoryError building a large matrix is the usual one):
+            // the requester still gets its FAILURE and the job leaves inFlight
+            onAgentThread(() -> {
+                finished(job);
+                ACLMessage fail = job.request.createReply();
+                fail.setPerformative(ACLMessage.FAILURE);
+                fail.setContent("Optimization failed: " + (e instanceof RuntimeException ? e.getMessage() : e));
+                send(fail);
+                sendLog(LogBatcher.Level.ERROR, job.id, "MRA: request " + job.id + " failed — " + e);
+            });
+            if (e instanceof Error) throw (Error) e;
+        }
+    }
+
+    // Queue work for the agent thread (picked up in section 6 of the cyclic behaviour)
+    private void onAgentThread(Runnable r) {
+        try {
+            putO2AObject(r, false);
+        } catch (InterruptedException e) {
+            // agent is shutting down; nobody is left to answer
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Runs onExpiry on the agent thread after ms, unless stopped first
+    private WakerBehaviour deadline(long ms, Runnable onExpiry) {
+        WakerBehaviour w = new WakerBehaviour(this, Math.max(1, ms)) {
+            @Override
+            protected void onWake() {
+                onExpiry.run();
+            }
+        };
+        addBehaviour(w);
+        return w;
+    }
+
+    // FAILURE from the platform for a message to a DA (dead or unknown receiver).
+    // Our messages to DAs carry reply-with "job/DA", which the failure answers;
+    // the DA counts as having replied with nothing.
+    private void handleUndelivered(ACLMessage msg) {
+        String ref = msg.getInReplyTo();
+        int slash = (ref == null) ? -1 : ref.lastIndexOf('/');
+        if (slash < 0) return;
+        String job = ref.substring(0, slash);
+        String da = ref.substring(slash + 1);
+
+        IslandJob island = islandJobs.get(job);
+        if (island != null && island.replied.add(da)) {
+            sendLog(LogBatcher.Level.WARN, island.owner.id, "MRA: " + job + ": " + da + " unreachable");
+            if (island.replied.size() >= island.expected) finishIslands(job, island);
+        }
+
+        ClusterJob cluster = clusterJobs.get(job);
+        if (cluster != null && cluster.das.contains(da)) {
+            sendLog(LogBatcher.Level.WARN, cluster.owner.id, "MRA: " + job + ": " + da + " unreachable");
+            clusterMissing(job, cluster, cluster.das.indexOf(da));
+        }
+
+        // CNET: the reference is "job-rN/DA"; only the current round's messages count
+        int r = job.lastIndexOf("-r");
+        CnetJob cnet = (r < 0) ? null : cnetJobs.get(job.substring(0, r));
+        if (cnet != null && job.substring(r + 2).equals(String.valueOf(cnet.round)) && cnet.das.contains(da)
+                && !cnet.answered[cnet.das.indexOf(da)]) {
+            sendLog(LogBatcher.Level.WARN, cnet.owner.id, "MRA: " + cnet.id + ": " + da + " unreachable");
+            cnetDrop(cnet, cnet.das.indexOf(da));
+        }
+    }
+
+    // cancel-request: content (or in-reply-to) names the request; empty or "*"
+    // cancels every request of that sender. A GA stops at its next generation and
+    // its best-so-far is dispatched as usual; ISLAND islands are told to stop and
+    // report; a request that has not started yet is answered with FAILURE.
+    private void handleCancel(ACLMessage msg) {
+        String id = (msg.getContent() == null) ? "" : msg.getContent().trim();
+        if (id.isEmpty() && msg.getInReplyTo() != null) id = msg.getInReplyTo();
+
+        List<InFlight> targets = new ArrayList<>();
+        for (InFlight job : inFlight.values()) {
+            boolean all = id.isEmpty() || "*".equals(id);
+            if (all ? job.request.getSender().equals(msg.getSender()) : job.id.equals(id)) {
+                targets.add(job);
+            }
+        }
+
+        for (InFlight job : targets) {
+            if (job.cancelled) continue;
+            job.cancelled = true;
+            SimpleGAOptimizer ga = job.ga;
+            if (ga != null) ga.cancel();
+
+            IslandJob island = (job.islandJob == null) ? null : islandJobs.get(job.islandJob);
+            if (island != null) {
+                ACLMessage stop = new ACLMessage(ACLMessage.CANCEL);
+                stop.setConversationId("island-cancel");
+                stop.setContent(job.islandJob);
+                for (String da : island.islands) stop.addReceiver(new AID(da, AID.ISLOCALNAME));
+                send(stop);
+            }
+
+            // still queued: drop it here instead of waiting for a worker to pick it up
+            if (job.future != null && job.future.cancel(false)) finishCancelled(job);
+        }
+
+        ACLMessage reply = msg.createReply();
+        reply.setPerformative(targets.isEmpty() ? ACLMessage.FAILURE : ACLMessage.INFORM);
+        reply.setContent(targets.isEmpty()
+                ? "No matching request in flight."
+                : "Cancelling " + targets.size() + " request(s)");
+        send(reply);
+
+        sendLog("MRA: cancel-request from " + msg.getSender().getLocalName() +
+                " (" + (id.isEmpty() ? "*" : id) + ") matched " + targets.size() + " request(s)");
+    }
+
+    // A request cancelled before it produced anything
+    private void finishCancelled(InFlight job) {
+        if (!inFlight.containsKey(job.id)) return;
+        finished(job);
+        ACLMessage fail = job.request.createReply();
+        fail.setPerformative(ACLMessage.FAILURE);
+        fail.setContent("Cancelled.");
+        send(fail);
+        sendLog("MRA: request " + job.id + " cancelled before it started.");
+    }
+
+    // A solve finished: remember it (unless cut short by a cancel) and send it out
+    private void complete(InFlight job,
+                          ItemStore store,
+                          DistanceOracle oracle,
+                          Map<String, int[]> resultRoutes,
+                          int delivered,
+                          double totalDistance) {
+        finished(job);
+        if (!job.cancelled && job.cacheKey != null) {
+            cache.put(job.cacheKey, resultRoutes, delivered, totalDistance);
+        }
+        dispatchResult(job.request, store, oracle, resultRoutes, delivered, totalDistance);
+    }
+
+    // A request has been answered: stop tracking it
+    private void finished(InFlight job) {
+        inFlight.remove(job.id);
+        logs.clearVerbosity(job.id);
+    }
+
+    // Conversation id for in-flight tracking: the requester's reply-with, so a later
+    // cancel-request can name it; a generated one when the requester set none
+    private String requestIdOf(ACLMessage request) {
+        String id = request.getReplyWith();
+        if (id == null || id.trim().isEmpty()) {
+            id = request.getSender().getLocalName() + "-req-" + (++requestCounter);
+            request.setReplyWith(id);
+        }
+        return id;
     }
 
     /* ================== Helper methods ================== */
 
+    // Send every DA its route (RouteInfo) and reply to the GUI with all routes,
+    // both in the codec the request asked for
+    private void dispatchResult(ACLMessage request,
+                                ItemStore store,
+                                DistanceOracle oracle,
+                                Map<String, int[]> resultRoutes,
+                                int delivered,
+                                double totalDistance) {
+        PayloadCodec codec = codecOf(request);
+
+        // Send each DA their individual route (as RouteInfo)
+        List<String> daNames = new ArrayList<>(vehicles.keySet());
+        List<String> routeDas = new ArrayList<>();
+        int idx = 0;
+
+        for (Map.Entry<String, int[]> e : resultRoutes.entrySet()) {
+            String daName = (idx < daNames.size()) ? daNames.get(idx++) : e.getKey();
+            sendRoute(daName, e.getValue(), store, oracle, codec);
+            routeDas.add(daName);
+        }
+
+        // keep it for incremental item changes
+        VehicleInfo vi = vehicles.values().iterator().next();
+        live = new LiveSolution(store, new ArrayList<>(resultRoutes.values()), vi.cap, vi.dv);
+        liveDas = routeDas;
+        liveOwner = request.getSender();
+
+        // Reply back to GUI agent so that the Swing UI can draw routes
+        ACLMessage guiReply = request.createReply();
+        guiReply.setPerformative(ACLMessage.INFORM);
+        guiReply.setConversationId("optimization-result");
+        guiReply.addUserDefinedParameter(PayloadCodec.PARAM, codec.name());
+        guiReply.setContent(codec.encodeRoutes(resultRoutes, store.asList()));
+        guiReply.addUserDefinedParameter(
+                "status",
+                "Delivered: " + delivered +
+                        " • Total distance: " + String.format("%.1f", totalDistance)
+        );
+        send(guiReply);
+
+        sendLog("MRA: results sent to GUI.");
+    }
+
+    // One DA's route as RouteInfo, in the given codec
+    private void sendRoute(String daName, int[] stops, ItemStore store, DistanceOracle oracle, PayloadCodec codec) {
+        double rd = computeRouteDistance(stops, oracle);
+
+        // Items are only materialised here, for the DA payloads
+        List<Item> route = store.toItems(stops, stops.length);
+
+        // Build payload and send ACLMessage to that DA
+        RouteInfo payload = new RouteInfo(route, rd);
+
+        ACLMessage daMsg = new ACLMessage(ACLMessage.INFORM);
+        daMsg.setConversationId("route");
+        daMsg.addReceiver(new AID(daName, AID.ISLOCALNAME));
+        daMsg.addUserDefinedParameter(PayloadCodec.PARAM, codec.name());
+        daMsg.setContent(codec.encodeRoute(payload));
+        send(daMsg);
+
+        sendLog("MRA → " + daName + ": route of " + route.size() +
+                " items, dist=" + String.format("%.1f", rd));
+    }
+
+    // item-add / item-update: items in the message's codec; item-remove: a JSON array
+    // of ids. The last solution is repaired in place, only DAs whose route changed get
+    // a new one, and the requester (and the original requester) get all routes back
+    // as an optimization-result. The item table changed, so that reply is always JSON.
+    private void handleItemChange(ACLMessage msg) {
+        String cid = msg.getConversationId();
+        if (live == null) {
+            ACLMessage fail = msg.createReply();
+            fail.setPerformative(ACLMessage.FAILURE);
+            fail.setContent("No solution to update yet; send an optimize-request first.");
+            send(fail);
+            return;
+        }
+
+        long t0 = System.currentTimeMillis();
+        Set<Integer> changed;
+        int count;
+        try {
+            if ("item-remove".equals(cid)) {
+                String[] ids = gson.fromJson(msg.getContent(), String[].class);
+                count = ids.length;
+                changed = live.remove(Arrays.asList(ids));
+            } else {
+                List<Item> items = codecOf(msg).decodeItems(msg.getContent());
+                count = items.size();
+                changed = "item-add".equals(cid) ? live.add(items) : live.update(items);
+            }
+        } catch (RuntimeException e) {
+            ACLMessage fail = msg.createReply();
+            fail.setPerformative(ACLMessage.FAILURE);
+            fail.setContent("Bad " + cid + ": " + e.getMessage());
+            send(fail);
+            sendLog(LogBatcher.Level.WARN, null, "MRA: bad " + cid + " from " + msg.getSender().getLocalName() + ": " + e.getMessage());
+            return;
+        }
+
+        PayloadCodec codec = codecOf(msg);
+        for (int v : changed) {
+            sendRoute(liveDas.get(v), live.route(v), live.store(), live.oracle(), codec);
+        }
+
+        int delivered = live.delivered();
+        double totalDistance = live.totalDistance();
+        sendLog(String.format("MRA: %s of %d item(s) repaired in %d ms, %d route(s) re-sent %s. " +
+                        "Delivered=%d  TotalDist=%.1f  Unrouted=%d",
+                cid, count, System.currentTimeMillis() - t0, changed.size(), namesOf(changed),
+                delivered, totalDistance, live.unrouted()));
+
+        ACLMessage reply = msg.createReply();
+        reply.setPerformative(ACLMessage.INFORM);
+        reply.setConversationId("optimization-result");
+        if (liveOwner != null && !liveOwner.equals(msg.getSender())) reply.addReceiver(liveOwner);
+        reply.addUserDefinedParameter(PayloadCodec.PARAM, PayloadCodec.JSON.name());
+        reply.setContent(PayloadCodec.JSON.encodeRoutes(live.routeIndices(), live.store().asList()));
+        reply.addUserDefinedParameter(
+                "status",
+                "Delivered: " + delivered +
+                        " • Total distance: " + String.format("%.1f", totalDistance)
+        );
+        send(reply);
+    }
+
+    private List<String> namesOf(Set<Integer> routes) {
+        List<String> names = new ArrayList<>();
+        for (int v : routes) names.add(liveDas.get(v));
+        return names;
+    }
+
+    // GA path: reply to the requester with each new incumbent, rate-limited
+    private SimpleGAOptimizer.ProgressListener progressSender(ACLMessage request) {
+        if (progressIntervalMs <= 0) return null;
+        boolean withRoutes = "true".equalsIgnoreCase(request.getUserDefinedParameter("progressRoutes"));
+        PayloadCodec codec = codecOf(request);
+
+        return new SimpleGAOptimizer.ProgressListener() {
+            private long lastSent = 0;
+
+            @Override
+            public void improved(SimpleGAOptimizer.Evolution ev) {
+                long now = System.currentTimeMillis();
+                if (now - lastSent < progressIntervalMs) return;
+                lastSent = now;
+
+                // decoding the incumbent costs one fitness evaluation, so only do it when sending
+                SimpleGAOptimizer.Result best = ev.result();
+                Progress p = new Progress();
+                p.generation = ev.generation();
+                p.fitness = ev.bestFitness();
+                p.delivered = best.itemsDelivered;
+                p.totalDistance = best.totalDistance;
+                if (withRoutes && codec == PayloadCodec.JSON) {
+                    p.routes = new LinkedHashMap<>();
+                    for (int i = 0; i < best.routes.size(); i++) {
+                        p.routes.put("DA" + (i + 1), best.routes.get(i));
+                    }
+                } else if (withRoutes) {
+                    Map<String, int[]> indices = new LinkedHashMap<>();
+                    for (int i = 0; i < best.routeIndices.size(); i++) {
+                        indices.put("DA" + (i + 1), best.routeIndices.get(i));
+                    }
+                    p.routeData = codec.encodeRoutes(indices, null);
+                }
+
+                ACLMessage msg = request.createReply();
+                msg.setPerformative(ACLMessage.INFORM);
+                msg.setConversationId("optimization-progress");
+                msg.addUserDefinedParameter(PayloadCodec.PARAM, codec.name());
+                msg.setContent(gson.toJson(p));
+                send(msg);
+            }
+        };
+    }
+
+    // ISLAND mode: hand each registered DA a GA sub-population, linked in a ring
+    private void startIslands(InFlight owner,
+                              List<Item> items,
+                              ItemStore store,
+                              DistanceOracle oracle,
+                              int numDAs,
+                              int cap,
+                              double dv) {
+        // cancelled while the worker was still building the distance matrix
+        if (owner.cancelled) {
+            finishCancelled(owner);
+            return;
+        }
+
+        ACLMessage request = owner.request;
+        String job = getLocalName() + "-island-" + (++jobCounter);
+        long seed = parseSeed(request.getUserDefinedParameter("seed"));
+        List<String> islands = new ArrayList<>(vehicles.keySet());
+
+        IslandJob state = new IslandJob();
+        state.owner = owner;
+        state.islands = islands;
+        state.request = request;
+        state.store = store;
+        state.oracle = oracle;
+        state.numDAs = numDAs;
+        state.cap = cap;
+        state.dv = dv;
+        state.expected = islands.size();
+        islandJobs.put(job, state);
+        owner.islandJob = job;
+
+        for (int i = 0; i < islands.size(); i++) {
+            IslandTask task = new IslandTask();
+            task.job = job;
+            task.items = items;
+            task.numVehicles = numDAs;
+            task.capacity = cap;
+            task.dv = dv;
+            task.generations = gaGenerations;
+            task.popSize = gaPopSize;
+            task.timeBudgetMs = timeBudgetOf(request);
+            task.stallGenerations = stallGenerationsOf(request);
+            // distinct but reproducible stream per island
+            task.seed = seed + i * 0x9E3779B97F4A7C15L;
+            task.migrationInterval = migrationInterval;
+            task.migrants = migrants;
+            task.next = islands.get((i + 1) % islands.size());
+
+            ACLMessage start = new ACLMessage(ACLMessage.REQUEST);
+            start.setConversationId("island-start");
+            start.setReplyWith(job + "/" + islands.get(i));
+            start.addReceiver(new AID(islands.get(i), AID.ISLOCALNAME));
+            start.setContent(gson.toJson(task));
+            send(start);
+        }
+        state.deadline = deadline(timeBudgetOf(request) + replyTimeoutMs, () -> islandsOverdue(job));
+
+        sendLog("MRA: " + job + " started on " + islands.size() + " islands " + islands +
+                " (migrate " + migrants + " every " + migrationInterval + " gens)");
+    }
+
+    // ISLAND mode: keep each island's best; once all are in, decode the winner and dispatch
+    private void handleIslandResult(ACLMessage msg) {
+        IslandResult r;
+        try {
+            r = gson.fromJson(msg.getContent(), IslandResult.class);
+        } catch (Exception e) {
+            sendLog(LogBatcher.Level.WARN, null, "MRA: bad island-result from " + msg.getSender().getLocalName() + ": " + e.getMessage());
+            return;
+        }
+
+        IslandJob state = (r == null) ? null : islandJobs.get(r.job);
+        if (state == null) return; // late result of a finished job
+        if (!state.replied.add(msg.getSender().getLocalName())) return;
+
+        state.results.add(r);
+        sendLog(String.format("MRA: island %s finished %s after %d gens (%s), fitness=%.1f",
+                r.island, r.job, r.generations, r.stopReason, r.fitness));
+        if (state.replied.size() < state.expected) return;
+
+        finishIslands(r.job, state);
+    }
+
+    // ISLAND mode: the deadline passed. First tell the silent islands to stop and
+    // report their best; at the next deadline go on with the results received.
+    private void islandsOverdue(String job) {
+        IslandJob state = islandJobs.get(job);
+        if (state == null) return;
+
+        List<String> silent = new ArrayList<>(state.islands);
+        silent.removeAll(state.replied);
+        if (!state.overtime) {
+            state.overtime = true;
+            ACLMessage stop = new ACLMessage(ACLMessage.CANCEL);
+            stop.setConversationId("island-cancel");
+            stop.setContent(job);
+            for (String da : silent) stop.addReceiver(new AID(da, AID.ISLOCALNAME));
+            send(stop);
+            state.deadline = deadline(replyTimeoutMs, () -> islandsOverdue(job));
+            sendLog(LogBatcher.Level.WARN, state.owner.id, "MRA: " + job + " overdue, stopping " + silent);
+            return;
+        }
+
+        sendLog(LogBatcher.Level.WARN, state.owner.id,
+                "MRA: " + job + " gave up on " + silent + ", using " + state.results.size() + " island result(s)");
+        finishIslands(job, state);
+    }
+
+    // ISLAND mode: decode the best island received and dispatch it
+    private void finishIslands(String job, IslandJob state) {
+        islandJobs.remove(job);
+        state.deadline.stop();
+        // stopped early or short of islands: not the result the request would normally get
+        if (state.overtime || state.results.size() < state.expected) state.owner.cacheKey = null;
+
+        // best fitness wins; ties go to the island that reported first
+        IslandResult winner = null;
+        for (IslandResult ir : state.results) {
+            if (ir.chromosome == null || ir.chromosome.length != state.store.size()) continue;
+            if (winner == null || ir.fitness > winner.fitness) winner = ir;
+        }
+        if (winner == null) {
+            finished(state.owner);
+            ACLMessage fail = state.request.createReply();
+            fail.setPerformative(ACLMessage.FAILURE);
+            fail.setContent("No island returned a valid chromosome.");
+            send(fail);
+            sendLog(LogBatcher.Level.WARN, null, "MRA: " + job + " failed — no valid island result.");
+            return;
+        }
+
+        SimpleGAOptimizer.Result gaRes = new SimpleGAOptimizer(0L).decode(
+                state.store, state.oracle, winner.chromosome, state.numDAs, state.cap, state.dv);
+
+        Map<String, int[]> resultRoutes = new LinkedHashMap<>();
+        for (int i = 0; i < gaRes.routeIndices.size(); i++) {
+            resultRoutes.put("DA" + (i + 1), gaRes.routeIndices.get(i));
+        }
+
+        sendLog("MRA: ✅ Optimization done (ISLAND, best from " + winner.island + "). Delivered=" +
+                gaRes.itemsDelivered + "  TotalDist=" + String.format("%.1f", gaRes.totalDistance));
+
+        complete(state.owner, state.store, state.oracle, resultRoutes,
+                gaRes.itemsDelivered, gaRes.totalDistance);
+    }
+
+    // CLUSTER mode: send each registered DA the items of its cluster
+    private void startClusters(InFlight owner,
+                               ItemStore store,
+                               DistanceOracle oracle,
+                               int[][] members,
+                               int cap,
+                               double dv) {
+        if (owner.cancelled) {
+            finishCancelled(owner);
+            return;
+        }
+
+        String job = getLocalName() + "-cluster-" + (++jobCounter);
+        List<String> das = new ArrayList<>(vehicles.keySet());
+        int k = Math.min(das.size(), members.length);
+
+        ClusterJob state = new ClusterJob();
+        state.owner = owner;
+        state.store = store;
+        state.oracle = oracle;
+        state.cap = cap;
+        state.dv = dv;
+        state.das = das.subList(0, k);
+        state.members = members;
+        state.routes = new int[k][0];
+        state.replied = new boolean[k];
+        state.missing = new boolean[k];
+        state.pending = k;
+        clusterJobs.put(job, state);
+
+        int clustered = 0;
+        for (int i = 0; i < k; i++) {
+            ClusterTask task = new ClusterTask();
+            task.job = job;
+            task.items = store.toItems(members[i], members[i].length);
+            task.capacity = cap;
+            task.dv = dv;
+            clustered += members[i].length;
+
+            ACLMessage start = new ACLMessage(ACLMessage.REQUEST);
+            start.setConversationId("cluster-start");
+            start.setReplyWith(job + "/" + das.get(i));
+            start.addReceiver(new AID(das.get(i), AID.ISLOCALNAME));
+            start.setContent(gson.toJson(task));
+            send(start);
+        }
+        state.deadline = deadline(replyTimeoutMs, () -> clustersOverdue(job));
+
+        sendLog("MRA: " + job + " sent " + clustered + " of " + store.size() + " items in " + k +
+                " clusters to " + state.das);
+    }
+
+    // CLUSTER mode: collect each DA's route; once all are in, repair and dispatch
+    private void handleClusterResult(ACLMessage msg) {
+        ClusterResult r;
+        try {
+            r = gson.fromJson(msg.getContent(), ClusterResult.class);
+        } catch (Exception e) {
+            sendLog(LogBatcher.Level.WARN, null, "MRA: bad cluster-result from " + msg.getSender().getLocalName() + ": " + e.getMessage());
+            return;
+        }
+
+        ClusterJob state = (r == null) ? null : clusterJobs.get(r.job);
+        if (state == null) return; // late result of a finished job
+
+        int i = state.das.indexOf(msg.getSender().getLocalName());
+        if (i < 0 || state.replied[i]) return;
+
+        // positions in the DA's cluster -> item indices of the request
+        int[] members = state.members[i];
+        int[] route = new int[(r.route == null) ? 0 : r.route.length];
+        for (int p = 0; p < route.length; p++) route[p] = members[r.route[p]];
+        state.routes[i] = route;
+        state.replied[i] = true;
+        sendLog(String.format("MRA: %s routed %d of %d cluster items, dist=%.1f",
+                state.das.get(i), route.length, members.length, r.distance));
+        if (--state.pending > 0) return;
+
+        finishClusters(r.job, state);
+    }
+
+    // CLUSTER mode: no route from DA i (unreachable, or the deadline passed)
+    private void clusterMissing(String job, ClusterJob state, int i) {
+        if (state.replied[i]) return;
+        state.replied[i] = true;
+        state.missing[i] = true;
+        state.owner.cacheKey = null;   // a degraded result is not cached
+        if (--state.pending == 0) finishClusters(job, state);
+    }
+
+    // CLUSTER mode: the deadline passed; the clusters still out are repaired into the routes that came back
+    private void clustersOverdue(String job) {
+        ClusterJob state = clusterJobs.get(job);
+        if (state == null) return;
+
+        List<String> silent = new ArrayList<>();
+        for (int i = 0; i < state.das.size(); i++) {
+            if (!state.replied[i]) silent.add(state.das.get(i));
+        }
+        sendLog(LogBatcher.Level.WARN, state.owner.id, "MRA: " + job + " overdue, repairing the clusters of " + silent);
+        for (int i = 0; i < state.das.size(); i++) clusterMissing(job, state, i);
+    }
+
+    // CLUSTER mode: every route is in (or given up on): repair and dispatch
+    private void finishClusters(String job, ClusterJob state) {
+        clusterJobs.remove(job);
+        state.deadline.stop();
+
+        // the repair round can be long on big instances: keep it off the agent thread
+        solver.submit(() -> {
+            // leftovers go only to the DAs that answered; the others keep an empty route
+            int live = 0;
+            for (boolean m : state.missing) {
+                if (!m) live++;
+            }
+            int[][] liveRoutes = new int[live][];
+            for (int v = 0, j = 0; v < state.routes.length; v++) {
+                if (!state.missing[v]) liveRoutes[j++] = state.routes[v];
+            }
+            int repaired = ClusterSolver.repair(state.store, state.oracle, liveRoutes, state.cap, state.dv);
+            for (int v = 0, j = 0; v < state.routes.length; v++) {
+                if (!state.missing[v]) state.routes[v] = liveRoutes[j++];
+            }
+
+            Map<String, int[]> resultRoutes = new LinkedHashMap<>();
+            int delivered = 0;
+            double totalDistance = 0.0;
+            for (int v = 0; v < state.routes.length; v++) {
+                resultRoutes.put("DA" + (v + 1), state.routes[v]);
+                delivered += state.routes[v].length;
+                totalDistance += computeRouteDistance(state.routes[v], state.oracle);
+            }
+
+            sendLog(LogBatcher.Level.INFO, state.owner.id,
+                    "MRA: ✅ Optimization done (CLUSTER, " + state.owner.id + "). Delivered=" + delivered +
+                    "  TotalDist=" + String.format("%.1f", totalDistance) + "  Repaired=" + repaired);
+
+            int deliveredF = delivered;
+            double totalDistanceF = totalDistance;
+            onAgentThread(() -> complete(state.owner, state.store, state.oracle, resultRoutes,
+                    deliveredF, totalDistanceF));
+        });
+    }
+
+    // CNET mode: open the auction; the first call carries the item table
+    private void startAuction(InFlight owner,
+                              ItemStore store,
+                              DistanceOracle oracle,
+                              int[] order,
+                              int cap,
+                              double dv,
+                              int batchSize) {
+        if (owner.cancelled) {
+            finishCancelled(owner);
+            return;
+        }
+
+        CnetJob state = new CnetJob();
+        state.id = getLocalName() + "-cnet-" + (++jobCounter);
+        state.owner = owner;
+        state.store = store;
+        state.oracle = oracle;
+        state.cap = cap;
+        state.dv = dv;
+        state.batchSize = Math.max(1, batchSize);
+        state.das = new ArrayList<>(vehicles.keySet());
+        state.order = order;
+        state.routes = new int[state.das.size()][16];
+        state.lengths = new int[state.das.size()];
+        state.gone = new boolean[state.das.size()];
+        cnetJobs.put(state.id, state);
+
+        sendLog("MRA: " + state.id + " auctioning " + store.size() + " items to " + state.das +
+                " in batches of " + state.batchSize);
+        callForProposals(state);
+    }
+
+    // Announce the next batch (re-announced items first), or close the auction
+    private void callForProposals(CnetJob state) {
+        // a cancel ends the auction after the current round, with what has been awarded so far
+        if (state.owner.cancelled || (state.next >= state.order.length && state.again.isEmpty())) {
+            closeAuction(state);
+            return;
+        }
+
+        int[] batch = new int[state.batchSize];
+        int len = 0;
+        while (len < batch.length && !state.again.isEmpty()) batch[len++] = state.again.pollFirst();
+        while (len < batch.length && state.next < state.order.length) batch[len++] = state.order[state.next++];
+
+        state.round++;
+        state.batch = Arrays.copyOf(batch, len);
+        state.bids = new double[state.das.size()][];
+        state.awarded = new int[state.das.size()][];
+        state.awarding = false;
+        state.answered = state.gone.clone();
+        state.pendingBids = 0;
+        for (boolean g : state.gone) {
+            if (!g) state.pendingBids++;
+        }
+        if (state.pendingBids == 0) {
+            closeAuction(state);
+            return;
+        }
+
+        CnetCall call = new CnetCall();
+        call.job = state.id;
+        call.round = state.round;
+        call.batch = state.batch;
+        if (state.round == 1) {
+            call.items = state.store.asList();
+            call.capacity = state.cap;
+            call.dv = state.dv;
+        }
+
+        // one CFP per DA, so a delivery failure names its receiver
+        String content = gson.toJson(call);
+        for (int v = 0; v < state.das.size(); v++) {
+            if (state.gone[v]) continue;
+            ACLMessage cfp = new ACLMessage(ACLMessage.CFP);
+            cfp.setConversationId("cnet");
+            cfp.setReplyWith(state.id + "-r" + state.round + "/" + state.das.get(v));
+            cfp.addReceiver(new AID(state.das.get(v), AID.ISLOCALNAME));
+            cfp.setContent(content);
+            send(cfp);
+        }
+        armDeadline(state);
+
+        sendLog(LogBatcher.Level.DEBUG, state.owner.id,
+                "MRA: " + state.id + " round " + state.round + " announces " + len + " items");
+    }
+
+    // CNET mode: PROPOSE / REFUSE count towards the round's bids, INFORM towards its awards
+    private void handleCnet(ACLMessage msg) {
+        String job;
+        int round;
+        CnetBid bid = null;
+        CnetDone done = null;
+        try {
+            if (msg.getPerformative() == ACLMessage.PROPOSE) {
+                bid = gson.fromJson(msg.getContent(), CnetBid.class);
+                job = bid.job;
+                round = bid.round;
+            } else if (msg.getPerformative() == ACLMessage.INFORM) {
+                done = gson.fromJson(msg.getContent(), CnetDone.class);
+                job = done.job;
+                round = done.round;
+            } else {
+                // REFUSE: nothing in the batch fits; content is "job round"
+                String[] p = msg.getContent().trim().split("\\s+");
+                job = p[0];
+                round = Integer.parseInt(p[1]);
+            }
+        } catch (Exception e) {
+            sendLog(LogBatcher.Level.WARN, null, "MRA: bad cnet reply from " + msg.getSender().getLocalName() + ": " + e.getMessage());
+            return;
+        }
+
+        CnetJob state = cnetJobs.get(job);
+        if (state == null || round != state.round) return; // late reply
+        int v = state.das.indexOf(msg.getSender().getLocalName());
+        if (v < 0 || state.answered[v] || (done != null) != state.awarding) return;
+        state.answered[v] = true;
+
+        if (done != null) {
+            applyInsertions(state, v, done);
+            if (--state.pendingAwards == 0) callForProposals(state);
+            return;
+        }
+
+        if (bid != null && bid.costs != null && bid.costs.length == state.batch.length) {
+            state.bids[v] = bid.costs;
+        }
+        if (--state.pendingBids == 0) award(state);
+    }
+
+    // One deadline per phase of a round; a new phase replaces the previous one
+    private void armDeadline(CnetJob state) {
+        if (state.deadline != null) state.deadline.stop();
+        int round = state.round;
+        boolean awarding = state.awarding;
+        state.deadline = deadline(replyTimeoutMs, () -> {
+            if (cnetJobs.get(state.id) != state || state.round != round || state.awarding != awarding) return;
+            List<String> silent = new ArrayList<>();
+            for (int v = 0; v < state.das.size(); v++) {
+                if (!state.answered[v]) silent.add(state.das.get(v));
+            }
+            sendLog(LogBatcher.Level.WARN, state.owner.id, "MRA: " + state.id + " round " + round +
+                    " overdue, dropping " + silent + " from the auction");
+            for (String da : silent) {
+                if (state.round != round || state.awarding != awarding) break;
+                cnetDrop(state, state.das.indexOf(da));
+            }
+        });
+    }
+
+    // A DA that did not answer (overdue or unreachable) leaves the auction: a missing
+    // bid counts as a refusal, items awarded to it are announced again. The routes it
+    // confirmed so far are kept.
+    private void cnetDrop(CnetJob state, int v) {
+        if (state.answered[v]) return;
+        state.answered[v] = true;
+        state.gone[v] = true;
+        state.owner.cacheKey = null;   // a degraded result is not cached
+
+        if (!state.awarding) {
+            state.bids[v] = null;
+            if (--state.pendingBids == 0) award(state);
+            return;
+        }
+        int[] lost = state.awarded[v];
+        for (int i = lost.length - 1; i >= 0; i--) state.again.addFirst(lost[i]);
+        state.reannounced += lost.length;
+        if (--state.pendingAwards == 0) callForProposals(state);
+    }
+
+    // Every bid is in: each item goes to its lowest bidder
+    private void award(CnetJob state) {
+        int[] winner = ContractNet.winners(state.bids, state.batch.length);
+
+        int unassigned = 0;
+        for (int w : winner) {
+            if (w < 0) unassigned++;
+        }
+        if (unassigned > 0) {
+            sendLog(LogBatcher.Level.DEBUG, state.owner.id,
+                    "MRA: " + state.id + " round " + state.round + ": " + unassigned + " items got no bid");
+        }
+
+        ACLMessage reject = new ACLMessage(ACLMessage.REJECT_PROPOSAL);
+        reject.setConversationId("cnet");
+        reject.setContent(state.id + " " + state.round);
+        boolean anyRejected = false;
+
+        state.awarding = true;
+        state.pendingAwards = 0;
+        for (int v = 0; v < state.das.size(); v++) {
+            state.answered[v] = true;              // until it is sent an award
+            if (state.bids[v] == null) continue;   // refused: nothing to answer
+            AID da = new AID(state.das.get(v), AID.ISLOCALNAME);
+            int[] won = ContractNet.awardsOf(v, state.batch, winner, state.bids);
+            if (won.length == 0) {
+                reject.addReceiver(da);
+                anyRejected = true;
+                continue;
+            }
+
+            CnetAward a = new CnetAward();
+            a.job = state.id;
+            a.round = state.round;
+            a.items = won;
+
+            ACLMessage accept = new ACLMessage(ACLMessage.ACCEPT_PROPOSAL);
+            accept.setConversationId("cnet");
+            accept.setInReplyTo(state.id + "-r" + state.round);
+            accept.setReplyWith(state.id + "-r" + state.round + "/" + state.das.get(v));
+            accept.addReceiver(da);
+            accept.setContent(gson.toJson(a));
+            send(accept);
+            state.awarded[v] = won;
+            state.answered[v] = false;
+            state.pendingAwards++;
+        }
+        if (anyRejected) send(reject);
+
+        if (state.pendingAwards == 0) {
+            callForProposals(state);
+        } else {
+            armDeadline(state);
+        }
+    }
+
+    // Replay a DA's insertions on our copy of its route; misfits go out again
+    private void applyInsertions(CnetJob state, int v, CnetDone done) {
+        int n = (done.inserted == null || done.positions == null)
+                ? 0 : Math.min(done.inserted.length, done.positions.length);
+        for (int i = 0; i < n; i++) {
+            int[] route = state.routes[v];
+            int len = state.lengths[v];
+            int pos = Math.max(0, Math.min(len, done.positions[i]));
+            if (len == route.length) route = state.routes[v] = Arrays.copyOf(route, len * 2);
+            System.arraycopy(route, pos, route, pos + 1, len - pos);
+            route[pos] = done.inserted[i];
+            state.lengths[v]++;
+        }
+        if (done.failed != null) {
+            for (int i = done.failed.length - 1; i >= 0; i--) state.again.addFirst(done.failed[i]);
+            state.reannounced += done.failed.length;
+        }
+    }
+
+    // Last batch awarded (or cancelled): release the DAs and reply with the routes
+    private void closeAuction(CnetJob state) {
+        cnetJobs.remove(state.id);
+        if (state.deadline != null) state.deadline.stop();
+
+        ACLMessage end = new ACLMessage(ACLMessage.CANCEL);
+        end.setConversationId("cnet");
+        end.setContent(state.id);
+        for (int v = 0; v < state.das.size(); v++) {
+            if (!state.gone[v]) end.addReceiver(new AID(state.das.get(v), AID.ISLOCALNAME));
+        }
+        send(end);
+
+        Map<String, int[]> resultRoutes = new LinkedHashMap<>();
+        int delivered = 0;
+        double totalDistance = 0.0;
+        for (int v = 0; v < state.das.size(); v++) {
+            int[] route = Arrays.copyOf(state.routes[v], state.lengths[v]);
+            resultRoutes.put("DA" + (v + 1), route);
+            delivered += route.length;
+            totalDistance += computeRouteDistance(route, state.oracle);
+        }
+
+        sendLog(LogBatcher.Level.INFO, state.owner.id,
+                "MRA: ✅ Optimization done (CNET, " + state.owner.id + "). Delivered=" + delivered +
+                "  TotalDist=" + String.format("%.1f", totalDistance) +
+                "  Rounds=" + state.round + "  Reannounced=" + state.reannounced +
+                (state.owner.cancelled ? "  (cancelled)" : ""));
+
+        complete(state.owner, state.store, state.oracle, resultRoutes, delivered, totalDistance);
+    }
+
     // Compute total distance of a single DA route (depot -> all stops -> depot)
-    private double computeRouteDistance(List<Item> route) {
-        if (route == null || route.isEmpty()) return 0.0;
+    private double computeRouteDistance(int[] route, DistanceOracle oracle) {
+        if (route == null || route.length == 0) return 0.0;
+        return oracle.routeLength(route, route.length);
+    }
 
-        double total = 0.0;
-        double x = 0.0;
-        double y = 0.0; // depot start
+    // GA limits sent by the GUI as user-defined parameters; the agent's defaults otherwise
+    private long timeBudgetOf(ACLMessage request) {
+        String v = request.getUserDefinedParameter("timeBudgetMs");
+        try {
+            return (v == null) ? gaTimeBudgetMs : Long.parseLong(v.trim());
+        } catch (NumberFormatException e) {
+            return gaTimeBudgetMs;
+        }
+    }
 
-        for (Item it : route) {
-            total += Math.hypot(it.getX() - x, it.getY() - y);
-            x = it.getX();
-            y = it.getY();
+    private int stallGenerationsOf(ACLMessage request) {
+        String v = request.getUserDefinedParameter("stallGenerations");
+        try {
+            return (v == null) ? gaStallGenerations : Integer.parseInt(v.trim());
+        } catch (NumberFormatException e) {
+            return gaStallGenerations;
         }
+    }
 
-        // add return to depot
-        total += Math.hypot(x, y);
+    // Search limits that shape the result of a technique, as part of the cache key
+    private String budgetOf(String technique, ACLMessage request) {
+        switch (technique.toUpperCase()) {
+            case "GA":
+                return gaGenerations + "/" + gaPopSize + "/" + timeBudgetOf(request) + "/" + stallGenerationsOf(request);
+            case "CNET":
+                return String.valueOf(cnetBatchOf(request));
+            default:
+                return "";
+        }
+    }
 
-        return total;
+    // Only runs that give the same result every time are cached: seeded (for the
+    // techniques that draw random numbers) and, for GA, not cut by the clock. ISLAND
+    // never is: migrants join whenever they arrive, so the run depends on timing.
+    private boolean reproducible(String technique, ACLMessage request) {
+        String t = technique.toUpperCase();
+        boolean seeded = false;
+        String seed = request.getUserDefinedParameter("seed");
+        if (seed != null) {
+            try {
+                Long.parseLong(seed.trim());
+                seeded = true;
+            } catch (NumberFormatException ignored) {
+                // parseSeed falls back to a random seed
+            }
+        }
+        switch (t) {
+            case "GA":
+                return seeded && timeBudgetOf(request) <= 0;
+            case "ISLAND":
+                return false;
+            case "CLUSTER":
+                return seeded;
+            default:
+                return true;   // GREEDY and CNET do not use the seed
+        }
     }
 
-    // Send a log line both to console and to GUI agent (so it shows up in UI Messages list)
+    // CNET batch size: user parameter "cnetBatch", the agent's default otherwise
+    private int cnetBatchOf(ACLMessage request) {
+        String v = request.getUserDefinedParameter("cnetBatch");
+        try {
+            return (v == null) ? cnetBatch : Integer.parseInt(v.trim());
+        } catch (NumberFormatException e) {
+            return cnetBatch;
+        }
+    }
+
+    // Payload codec chosen by the requester (user parameter "codec"); JSON when absent
+    private static PayloadCodec codecOf(ACLMessage request) {
+        return PayloadCodec.forName(request.getUserDefinedParameter(PayloadCodec.PARAM));
+    }
+
+    // Seed sent by the GUI as a user-defined parameter; random when missing or malformed
+    private static long parseSeed(String param) {
+        if (param != null) {
+            try {
+                return Long.parseLong(param.trim());
+            } catch (NumberFormatException ignored) {
+                // fall through to a random seed
+            }
+        }
+        return System.nanoTime();
+    }
+
+    // Log line for console and GUI (Messages list); buffered and sent as log-batch
     private void sendLog(String line) {
-        ACLMessage log = new ACLMessage(ACLMessage.INFORM);
-        log.setConversationId("log");
-        log.setContent(line);
-        log.addReceiver(new AID("GUI", AID.ISLOCALNAME));
-        send(log);
+        logs.info(line);
+    }
 
-        System.out.println(line);
+    private void sendLog(LogBatcher.Level level, String request, String line) {
+        logs.log(level, request, line);
     }
 }
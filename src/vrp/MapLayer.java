@@ -0,0 +1,274 @@
+package vrp;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything the route canvas draws that depends only on the items and the
+ * panel size: the world -> pixel projection, each item's pixel position, and
+ * an off-screen image of the item dots and labels. MasUI keeps one instance
+ * and builds a new one only when the item list, panel size or font changes;
+ * repaints for new routes just blit the image.
+ *
+ * Above LOD_ITEMS items the image is a density map (one translucent dot per
+ * occupied pixel cell, darker where more items fall) without labels. Below it,
+ * labels are placed around their dot avoiding overlaps, with the already
+ * placed labels indexed in a uniform pixel grid (spatial hash) so each
+ * candidate is tested against nearby labels only.
+ */
+public final class MapLayer {
+
+    public static final int LOD_ITEMS = 2000;
+
+    private static final int MARGIN = 40;
+    private static final int DOT_R = 3;
+    private static final int LABEL_CELL = 32;   // px per spatial-hash cell
+    private static final int DENSITY_CELL = 3;  // px per density-map cell
+
+    // label offsets tried around a dot: radii 8..32, every 45 degrees
+    private static final int[] OFF_X = new int[32];
+    private static final int[] OFF_Y = new int[32];
+    static {
+        int k = 0;
+        for (int radius = 8; radius <= 32; radius += 8) {
+            for (int angle = 0; angle < 360; angle += 45) {
+                OFF_X[k] = (int) (radius * Math.cos(Math.toRadians(angle)));
+                OFF_Y[k] = (int) (radius * Math.sin(Math.toRadians(angle)));
+                k++;
+            }
+        }
+    }
+
+    private final List<Item> items;
+    private final int width;
+    private final int height;
+    private final Font font;
+
+    private final double minX;
+    private final double minY;
+    private final double scaleX;
+    private final double scaleY;
+
+    private final int[] px;
+    private final int[] py;
+    private final Map<String, Integer> indexById;
+    private final BufferedImage image;
+
+    private MapLayer(List<Item> items, int width, int height, Font font) {
+        this.items = items;
+        this.width = width;
+        this.height = height;
+        this.font = font;
+
+        // ====== FIT-TO-PANEL SCALING (one pass over the items) ======
+        int n = items.size();
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+        double[] wx = new double[n];
+        double[] wy = new double[n];
+        String[] ids = new String[n];
+        for (int i = 0; i < n; i++) {
+            Item it = items.get(i);
+            wx[i] = it.getX();
+            wy[i] = it.getY();
+            ids[i] = it.getId();
+            x0 = Math.min(x0, wx[i]);
+            x1 = Math.max(x1, wx[i]);
+            y0 = Math.min(y0, wy[i]);
+            y1 = Math.max(y1, wy[i]);
+        }
+        if (n == 0) {
+            x0 = y0 = 0;
+            x1 = y1 = 1;
+        }
+
+        // add ~10% padding so labels don't get clipped
+        double padX = (x1 - x0) * 0.10;
+        double padY = (y1 - y0) * 0.10;
+        x0 -= padX;
+        x1 += padX;
+        y0 -= padY;
+        y1 += padY;
+
+        this.minX = x0;
+        this.minY = y0;
+        this.scaleX = (width - 2.0 * MARGIN) / Math.max(1, x1 - x0);
+        this.scaleY = (height - 2.0 * MARGIN) / Math.max(1, y1 - y0);
+
+        // ====== PIXEL POSITIONS by index, looked up by ID ======
+        // We key by item ID, not object ref. Works with JADE clones.
+        this.px = new int[n];
+        this.py = new int[n];
+        this.indexById = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            px[i] = x(wx[i]);
+            py[i] = y(wy[i]);
+            indexById.put(ids[i], i);
+        }
+
+        this.image = new BufferedImage(Math.max(1, width), Math.max(1, height), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = image.createGraphics();
+        try {
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setFont(font);
+            if (n > LOD_ITEMS) {
+                drawDensity(g2);
+            } else {
+                drawPointsAndLabels(g2, ids);
+            }
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    /** The current layer when it still fits, otherwise a freshly built one. */
+    public static MapLayer of(MapLayer cached, List<Item> items, int width, int height, Font font) {
+        if (cached != null && cached.items == items && cached.width == width
+                && cached.height == height && cached.font.equals(font)) {
+            return cached;
+        }
+        return new MapLayer(items, width, height, font);
+    }
+
+    // --- Projection ---
+
+    public int x(double worldX) {
+        return (int) (MARGIN + (worldX - minX) * scaleX);
+    }
+
+    // flip Y so higher values draw upward on screen
+    public int y(double worldY) {
+        return (int) (height - (MARGIN + (worldY - minY) * scaleY));
+    }
+
+    /** Index of the item with this id, or -1. */
+    public int indexOf(String id) {
+        Integer i = indexById.get(id);
+        return (i == null) ? -1 : i;
+    }
+
+    public int pixelX(int idx) { return px[idx]; }
+    public int pixelY(int idx) { return py[idx]; }
+
+    public boolean detailed() {
+        return items.size() <= LOD_ITEMS;
+    }
+
+    /** Dots (and labels) on a transparent background, drawn over the routes. */
+    public BufferedImage image() {
+        return image;
+    }
+
+    // ====== LEVEL OF DETAIL: density dots, no labels ======
+    private void drawDensity(Graphics2D g2) {
+        int cols = width / DENSITY_CELL + 1;
+        int rows = height / DENSITY_CELL + 1;
+        int[] count = new int[cols * rows];
+        int max = 0;
+        for (int i = 0; i < px.length; i++) {
+            int cx = px[i] / DENSITY_CELL;
+            int cy = py[i] / DENSITY_CELL;
+            if (cx < 0 || cy < 0 || cx >= cols || cy >= rows) continue;
+            max = Math.max(max, ++count[cy * cols + cx]);
+        }
+        if (max == 0) return;
+
+        // alpha by log density, so isolated items stay visible next to dense clusters
+        double norm = Math.log1p(max);
+        Color[] shade = new Color[max + 1];
+        for (int c = 0; c < count.length; c++) {
+            int k = count[c];
+            if (k == 0) continue;
+            if (shade[k] == null) {
+                int alpha = (int) (90 + 165 * Math.log1p(k) / norm);
+                shade[k] = new Color(0, 0, 0, Math.min(255, alpha));
+            }
+            g2.setColor(shade[k]);
+            g2.fillRect((c % cols) * DENSITY_CELL, (c / cols) * DENSITY_CELL, DENSITY_CELL, DENSITY_CELL);
+        }
+    }
+
+    // ====== POINTS + LABELS ======
+    private void drawPointsAndLabels(Graphics2D g2, String[] ids) {
+        g2.setColor(Color.BLACK);
+        FontMetrics fm = g2.getFontMetrics();
+        LabelGrid occupied = new LabelGrid(width, height);
+
+        for (int i = 0; i < px.length; i++) {
+            int x = px[i], y = py[i];
+
+            // draw the stop dot
+            g2.fillOval(x - DOT_R, y - DOT_R, DOT_R * 2, DOT_R * 2);
+
+            // label text: ONLY item ID (cleaner for presentation)
+            String text = ids[i];
+            int w = fm.stringWidth(text);
+            int h = fm.getHeight();
+
+            // spiral-ish placement to avoid overlaps
+            Rectangle chosen = null;
+            for (int k = 0; k < OFF_X.length && chosen == null; k++) {
+                Rectangle r = new Rectangle(x + OFF_X[k], y + OFF_Y[k] - fm.getAscent(), w, h);
+                if (!occupied.intersects(r)) chosen = r;
+            }
+
+            // fallback if couldn't place nicely
+            if (chosen == null) {
+                chosen = new Rectangle(x + 5, y - fm.getAscent(), w, h);
+            }
+
+            g2.drawString(text, chosen.x, chosen.y + fm.getAscent() - 2);
+            occupied.add(chosen);
+        }
+    }
+
+    // Placed label rectangles bucketed by pixel cell; a rectangle is listed in every cell it touches
+    private static final class LabelGrid {
+        final int cols;
+        final int rows;
+        final Rectangle[][] cells;
+        final int[] counts;
+
+        LabelGrid(int width, int height) {
+            cols = Math.max(1, width / LABEL_CELL + 1);
+            rows = Math.max(1, height / LABEL_CELL + 1);
+            cells = new Rectangle[cols * rows][];
+            counts = new int[cols * rows];
+        }
+
+        boolean intersects(Rectangle r) {
+            int c0 = col(r.x), c1 = col(r.x + r.width), r0 = row(r.y), r1 = row(r.y + r.height);
+            for (int cy = r0; cy <= r1; cy++) {
+                for (int cx = c0; cx <= c1; cx++) {
+                    int c = cy * cols + cx;
+                    for (int k = 0; k < counts[c]; k++) {
+                        if (cells[c][k].intersects(r)) return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        void add(Rectangle r) {
+            int c0 = col(r.x), c1 = col(r.x + r.width), r0 = row(r.y), r1 = row(r.y + r.height);
+            for (int cy = r0; cy <= r1; cy++) {
+                for (int cx = c0; cx <= c1; cx++) {
+                    int c = cy * cols + cx;
+                    if (cells[c] == null) {
+                        cells[c] = new Rectangle[4];
+                    } else if (counts[c] == cells[c].length) {
+                        cells[c] = java.util.Arrays.copyOf(cells[c], counts[c] * 2);
+                    }
+                    cells[c][counts[c]++] = r;
+                }
+            }
+        }
+
+        // labels off the panel edge are clamped into the border cells
+        private int col(int x) { return Math.max(0, Math.min(cols - 1, x / LABEL_CELL)); }
+        private int row(int y) { return Math.max(0, Math.min(rows - 1, y / LABEL_CELL)); }
+    }
+}
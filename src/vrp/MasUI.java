@@ -16,8 +16,12 @@ public class MasUI extends JFrame {
     private final JTextField tfCapacity = new JTextField("7", 6);
     private final JTextField tfMaxDist  = new JTextField("250", 6);
     private final JTextField tfSeed     = new JTextField("42", 6);
+    private final JTextField tfBudget   = new JTextField("5000", 6);
+    private final JTextField tfStall    = new JTextField("50", 6);
 
-    private final JComboBox<String> cbOpt = new JComboBox<>(new String[]{"GREEDY", "GA"});
+    private final JComboBox<String> cbOpt = new JComboBox<>(new String[]{"GREEDY", "GA", "ISLAND", "CLUSTER", "CNET"});
+    private final JComboBox<String> cbLogLevel = new JComboBox<>(new String[]{"DEBUG", "INFO", "WARN", "ERROR"});
+    private final JComboBox<String> cbCodec = new JComboBox<>(new String[]{"JSON", "INDEX", "BINARY"});
 
     private final JRadioButton rbAuto = new JRadioButton("Generate automatically", true);
     private final JRadioButton rbFile = new JRadioButton("Load from file");
@@ -27,13 +31,16 @@ public class MasUI extends JFrame {
     private final JButton btnLoadGen      = new JButton("Load / Generate");
     private final JButton btnOptimize     = new JButton("Optimize (Local)");
     private final JButton btnOptimizeJade = new JButton("Optimize (JADE)");
+    private final JButton btnCancelJade   = new JButton("Cancel (JADE)");
 
     private final JButton btnLaunchJade   = new JButton("Launch MAS (JADE)");
     private final JButton btnRestartJade  = new JButton("Restart JADE");
     private final JButton btnShutdownJade = new JButton("Shutdown JADE");
 
-    private final DefaultListModel<String> messages = new DefaultListModel<>();
+    // newest 20k lines; agents may log for days against a running platform
+    private final MessageListModel messages = new MessageListModel(20_000);
     private final JList<String> messagesList = new JList<>(messages);
+    private final JTextField tfFilter = new JTextField(14);
 
     private final JLabel statusBar = new JLabel("Ready");
 
@@ -44,9 +51,13 @@ public class MasUI extends JFrame {
     // Callbacks that the GuiAgent can set
     private Consumer<List<Item>> onOptimizeToJade;
     private Consumer<String> onTechniqueChange;
+    private Runnable onCancelJade;
 
     // ---- Canvas -------------------------------------------------------------
     private final JPanel canvas = new JPanel() {
+        // projection + off-screen item layer, rebuilt only when items, size or font change
+        private MapLayer layer;
+
         @Override
         protected void paintComponent(Graphics g) {
             super.paintComponent(g);
@@ -56,8 +67,6 @@ public class MasUI extends JFrame {
 
             int W = getWidth();
             int H = getHeight();
-            final int MARGIN = 40;
-            final int DOT_R = 3;
 
             // background
             g2.setColor(Color.WHITE);
@@ -70,49 +79,11 @@ public class MasUI extends JFrame {
                 return;
             }
 
-            // ====== FIT-TO-PANEL SCALING ======
-            double minX = items.stream().mapToDouble(Item::getX).min().orElse(0);
-            double maxX = items.stream().mapToDouble(Item::getX).max().orElse(1);
-            double minY = items.stream().mapToDouble(Item::getY).min().orElse(0);
-            double maxY = items.stream().mapToDouble(Item::getY).max().orElse(1);
-
-            // add ~10% padding so labels don't get clipped
-            double padX = (maxX - minX) * 0.10;
-            double padY = (maxY - minY) * 0.10;
-
-            minX -= padX;
-            maxX += padX;
-            minY -= padY;
-            maxY += padY;
-
-            double worldW = Math.max(1, (maxX - minX));
-            double worldH = Math.max(1, (maxY - minY));
-
-            final double minXf = minX;
-            final double minYf = minY;
-            final double scaleXf = (W - 2.0 * MARGIN) / worldW;
-            final double scaleYf = (H - 2.0 * MARGIN) / worldH;
-
-            // world -> pixel converters using final copies
-            java.util.function.Function<Double, Integer> toPixX =
-                    x -> (int) (MARGIN + (x - minXf) * scaleXf);
-
-            // flip Y so higher values draw upward on screen
-            java.util.function.Function<Double, Integer> toPixY =
-                    y -> (int) (H - (MARGIN + (y - minYf) * scaleYf));
-
-            // ====== BUILD PIXEL MAP by ID ======
-            // We key by item ID, not object ref. Works with JADE clones.
-            Map<String, Point> pixById = new LinkedHashMap<>();
-            for (Item it : items) {
-                int px = toPixX.apply(it.getX());
-                int py = toPixY.apply(it.getY());
-                pixById.put(it.getId(), new Point(px, py));
-            }
+            layer = MapLayer.of(layer, items, W, H, g2.getFont());
 
             // ====== DRAW DEPOT ======
-            int depotX = toPixX.apply(0.0);
-            int depotY = toPixY.apply(0.0);
+            int depotX = layer.x(0.0);
+            int depotY = layer.y(0.0);
 
             g2.setColor(new Color(100, 150, 150));
             g2.fillOval(depotX - 4, depotY - 4, 8, 8);
@@ -129,6 +100,8 @@ public class MasUI extends JFrame {
             };
 
             // ====== DRAW ROUTES ======
+            // thinner lines once the map is drawn as a density layer
+            BasicStroke routeStroke = new BasicStroke(layer.detailed() ? 2.5f : 1.0f);
             int colorIndex = 0;
             for (Map.Entry<String, List<Item>> e : routes.entrySet()) {
                 String daName = e.getKey();
@@ -137,20 +110,22 @@ public class MasUI extends JFrame {
                 Color routeColor = daColors[colorIndex % daColors.length];
 
                 g2.setColor(routeColor);
-                g2.setStroke(new BasicStroke(2.5f));
+                g2.setStroke(routeStroke);
 
                 int lastX = depotX;
                 int lastY = depotY;
 
                 for (Item stop : seq) {
-                    Point p = pixById.get(stop.getId());
-                    if (p == null) {
+                    int idx = layer.indexOf(stop.getId());
+                    if (idx < 0) {
                         // Route refers to item not in items (shouldn't happen, but safe)
                         continue;
                     }
-                    g2.drawLine(lastX, lastY, p.x, p.y);
-                    lastX = p.x;
-                    lastY = p.y;
+                    int x = layer.pixelX(idx);
+                    int y = layer.pixelY(idx);
+                    g2.drawLine(lastX, lastY, x, y);
+                    lastX = x;
+                    lastY = y;
                 }
 
                 // close route back to depot
@@ -162,66 +137,8 @@ public class MasUI extends JFrame {
                 colorIndex++;
             }
 
-            // ====== DRAW POINTS + LABELS ======
-            g2.setColor(Color.BLACK);
-            java.util.List<Rectangle> occupied = new ArrayList<>();
-            FontMetrics fm = g2.getFontMetrics();
-
-            for (Item it : items) {
-                Point p = pixById.get(it.getId());
-                if (p == null) continue;
-
-                // draw the stop dot
-                g2.fillOval(p.x - DOT_R, p.y - DOT_R, DOT_R * 2, DOT_R * 2);
-
-                // label text: ONLY item ID (cleaner for presentation)
-                String text = it.getId();
-
-                Rectangle chosen = null;
-
-                // spiral-ish placement to avoid overlaps
-                for (int radius = 8; radius <= 32 && chosen == null; radius += 8) {
-                    for (int angle = 0; angle < 360; angle += 45) {
-                        int dx = (int) (radius * Math.cos(Math.toRadians(angle)));
-                        int dy = (int) (radius * Math.sin(Math.toRadians(angle)));
-
-                        int tx = p.x + dx;
-                        int ty = p.y + dy;
-
-                        Rectangle r = new Rectangle(
-                                tx,
-                                ty - fm.getAscent(),
-                                fm.stringWidth(text),
-                                fm.getHeight()
-                        );
-
-                        boolean overlapsAny = false;
-                        for (Rectangle o : occupied) {
-                            if (o.intersects(r)) {
-                                overlapsAny = true;
-                                break;
-                            }
-                        }
-                        if (!overlapsAny) {
-                            chosen = r;
-                            break;
-                        }
-                    }
-                }
-
-                // fallback if couldn't place nicely
-                if (chosen == null) {
-                    chosen = new Rectangle(
-                            p.x + 5,
-                            p.y - fm.getAscent(),
-                            fm.stringWidth(text),
-                            fm.getHeight()
-                    );
-                }
-
-                g2.drawString(text, chosen.x, chosen.y + fm.getAscent() - 2);
-                occupied.add(chosen);
-            }
+            // ====== DRAW POINTS + LABELS (cached layer, on top of the routes) ======
+            g2.drawImage(layer.image(), 0, 0, null);
 
             // ====== LEGEND BOX (TOP RIGHT CORNER) ======
             int legendX = W - 180;
@@ -279,6 +196,10 @@ public class MasUI extends JFrame {
         params.add(tfMaxDist);
         params.add(new JLabel("Seed:"));
         params.add(tfSeed);
+        params.add(new JLabel("GA time budget (ms):"));
+        params.add(tfBudget);
+        params.add(new JLabel("GA stall generations:"));
+        params.add(tfStall);
 
         ButtonGroup bg = new ButtonGroup();
         bg.add(rbAuto);
@@ -298,11 +219,18 @@ public class MasUI extends JFrame {
         optBox.setBorder(new TitledBorder("Optimization"));
         optBox.add(new JLabel("Technique:"));
         optBox.add(cbOpt);
+        optBox.add(new JLabel("Log level:"));
+        cbLogLevel.setSelectedItem("INFO");
+        optBox.add(cbLogLevel);
+        optBox.add(new JLabel("Payload:"));
+        cbCodec.setSelectedItem("BINARY");
+        optBox.add(cbCodec);
 
         JPanel actions = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 6));
         actions.add(btnLoadGen);
         actions.add(btnOptimize);
         actions.add(btnOptimizeJade);
+        actions.add(btnCancelJade);
 
         JPanel jade = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 6));
         jade.setBorder(new TitledBorder("JADE Control"));
@@ -313,7 +241,13 @@ public class MasUI extends JFrame {
         JPanel msgPanel = new JPanel(new BorderLayout());
         msgPanel.setBorder(new TitledBorder("Messages"));
         messagesList.setVisibleRowCount(10);
+        // fixed cell size (about 200 columns): the list never measures every line
+        messagesList.setPrototypeCellValue("x".repeat(200));
         msgPanel.add(new JScrollPane(messagesList), BorderLayout.CENTER);
+        JPanel filterRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 4, 2));
+        filterRow.add(new JLabel("Filter:"));
+        filterRow.add(tfFilter);
+        msgPanel.add(filterRow, BorderLayout.NORTH);
 
         JPanel left = new JPanel();
         left.setLayout(new BoxLayout(left, BoxLayout.Y_AXIS));
@@ -355,9 +289,32 @@ public class MasUI extends JFrame {
 
         // events
         btnBrowse.addActionListener(e -> onBrowse());
+        tfFilter.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            @Override public void insertUpdate(javax.swing.event.DocumentEvent e)  { messages.setFilter(tfFilter.getText()); }
+            @Override public void removeUpdate(javax.swing.event.DocumentEvent e)  { messages.setFilter(tfFilter.getText()); }
+            @Override public void changedUpdate(javax.swing.event.DocumentEvent e) { messages.setFilter(tfFilter.getText()); }
+        });
+        // follow the newest line as batches arrive
+        messages.addListDataListener(new javax.swing.event.ListDataListener() {
+            @Override public void intervalAdded(javax.swing.event.ListDataEvent e) {
+                messagesList.ensureIndexIsVisible(e.getIndex1());
+            }
+            @Override public void intervalRemoved(javax.swing.event.ListDataEvent e) { }
+            @Override public void contentsChanged(javax.swing.event.ListDataEvent e) { }
+        });
         btnLoadGen.addActionListener(e -> onLoadOrGenerate());
         btnOptimize.addActionListener(e -> onOptimizeLocal());
         btnOptimizeJade.addActionListener(e -> sendToJade());
+        btnCancelJade.addActionListener(e -> {
+            // stops every optimisation this GUI has running on the MRA
+            if (onCancelJade != null && JadePlatformManager.isRunning()) onCancelJade.run();
+        });
+        cbOpt.addActionListener(e -> {
+            // keep a running MRA in sync with the dropdown
+            if (onTechniqueChange != null && JadePlatformManager.isRunning()) {
+                onTechniqueChange.accept(getSelectedOpt());
+            }
+        });
 
         btnLaunchJade.addActionListener(e -> onLaunchJade());
         btnRestartJade.addActionListener(e -> onRestartJade());
@@ -372,21 +329,24 @@ public class MasUI extends JFrame {
     public int getCapacityPerDA()       { return Integer.parseInt(tfCapacity.getText().trim()); }
     public double getMaxDistance()      { return Double.parseDouble(tfMaxDist.getText().trim()); }
     public long getSeed()               { return Long.parseLong(tfSeed.getText().trim()); }
+    public long getTimeBudgetMs()       { return Long.parseLong(tfBudget.getText().trim()); }
+    public int getStallGenerations()    { return Integer.parseInt(tfStall.getText().trim()); }
+    public String getLogLevel()         { return String.valueOf(cbLogLevel.getSelectedItem()); }
+    public String getPayloadCodec()     { return String.valueOf(cbCodec.getSelectedItem()); }
 
     // Hooks for GuiAgent
     public void setOnOptimizeToJade(Consumer<List<Item>> handler) { this.onOptimizeToJade = handler; }
     public void setOnTechniqueChange(Consumer<String> handler)    { this.onTechniqueChange = handler; }
+    public void setOnCancelJade(Runnable handler)                 { this.onCancelJade = handler; }
 
     // ---- Message area helpers ----------------------------------------------
+    // Any thread: lines are queued and reach the list in one EDT update per burst
     public void appendMessage(String line) {
-        final String msgText = line; // effectively final for lambda
-        SwingUtilities.invokeLater(() -> {
-            messages.addElement(msgText);
-            int last = messages.size() - 1;
-            if (last >= 0) {
-                messagesList.ensureIndexIsVisible(last);
-            }
-        });
+        messages.add(line);
+    }
+
+    public void appendMessages(List<String> lines) {
+        messages.addAll(lines);
     }
 
     // alias
@@ -409,7 +369,12 @@ public class MasUI extends JFrame {
                 if (path.isEmpty()) {
                     throw new IllegalArgumentException("Select an items file.");
                 }
-                items = ItemsParser.parseItems(path);
+                // .vrpbin is memory-mapped; anything else goes through the fast CSV parser.
+                // Either way the UI gets a List view over the loaded columns.
+                ItemStore store = VrpBin.isVrpBin(path)
+                        ? VrpBin.load(path)
+                        : ItemsParser.parseStore(path);
+                items = store.asList();
             }
 
             routes.clear();
@@ -433,9 +398,14 @@ public class MasUI extends JFrame {
 
             long t0 = System.currentTimeMillis();
 
-            if ("GA".equalsIgnoreCase(opt)) {
-                SimpleGAOptimizer ga = new SimpleGAOptimizer();
-                SimpleGAOptimizer.Result r = ga.solve(items, numDAs, cap, dv, 200, 40);
+            // ISLAND needs the JADE platform; locally it is the plain GA
+            if ("GA".equalsIgnoreCase(opt) || "ISLAND".equalsIgnoreCase(opt)) {
+                // seeded from the Seed field; breeding/fitness spread over the common pool
+                // stops at 200 generations, the time budget or the stall limit, whichever is first
+                SimpleGAOptimizer ga = new SimpleGAOptimizer(getSeed(), java.util.concurrent.ForkJoinPool.commonPool());
+                ItemStore store = ItemStore.of(items);
+                SimpleGAOptimizer.Result r = ga.solve(store, DistanceOracle.of(store), numDAs, cap, dv,
+                        200, 40, getTimeBudgetMs(), getStallGenerations());
 
                 routes.clear();
                 for (int i = 0; i < r.routes.size(); i++) {
@@ -445,12 +415,53 @@ public class MasUI extends JFrame {
                 long ms = System.currentTimeMillis() - t0;
 
                 status(String.format(
-                        "Optimized with GA • Delivered: %d • Total distance: %.1f • Time: %dms",
-                        r.itemsDelivered, r.totalDistance, ms
+                        "Optimized with GA • Delivered: %d • Total distance: %.1f • Time: %dms • Generations: %d (%s)",
+                        r.itemsDelivered, r.totalDistance, ms, r.generations, r.stopReason
+                ));
+                appendMessage(String.format(
+                        "GUI(Local): Optimized with GA • Delivered: %d • Total distance: %.1f • Time: %dms • Generations: %d (%s) • Fitness cache: %d hits / %d misses",
+                        r.itemsDelivered, r.totalDistance, ms, r.generations, r.stopReason, r.cacheHits, r.cacheMisses
+                ));
+            } else if ("CLUSTER".equalsIgnoreCase(opt)) {
+                // same decomposition the DAs run in JADE mode, clusters routed on the common pool
+                ItemStore store = ItemStore.of(items);
+                ClusterSolver.Result r = ClusterSolver.solve(store, DistanceOracle.of(store), numDAs, cap, dv, getSeed());
+
+                routes.clear();
+                for (Map.Entry<String, int[]> e : r.routeIndices.entrySet()) {
+                    routes.put(e.getKey(), store.toItems(e.getValue(), e.getValue().length));
+                }
+
+                long ms = System.currentTimeMillis() - t0;
+
+                status(String.format(
+                        "Optimized with CLUSTER • Delivered: %d • Total distance: %.1f • Time: %dms",
+                        r.delivered, r.totalDistance, ms
                 ));
                 appendMessage(String.format(
-                        "GUI(Local): Optimized with GA • Delivered: %d • Total distance: %.1f • Time: %dms",
-                        r.itemsDelivered, r.totalDistance, ms
+                        "GUI(Local): Optimized with CLUSTER • Delivered: %d • Total distance: %.1f • Time: %dms • Repaired: %d",
+                        r.delivered, r.totalDistance, ms, r.repaired
+                ));
+            } else if ("CNET".equalsIgnoreCase(opt)) {
+                // same auction the DAs run in JADE mode, every vehicle bidding in parallel
+                ItemStore store = ItemStore.of(items);
+                ContractNet.Result r = ContractNet.solve(store, DistanceOracle.of(store), numDAs, cap, dv,
+                        ContractNet.DEFAULT_BATCH);
+
+                routes.clear();
+                for (Map.Entry<String, int[]> e : r.routeIndices.entrySet()) {
+                    routes.put(e.getKey(), store.toItems(e.getValue(), e.getValue().length));
+                }
+
+                long ms = System.currentTimeMillis() - t0;
+
+                status(String.format(
+                        "Optimized with CNET • Delivered: %d • Total distance: %.1f • Time: %dms",
+                        r.delivered, r.totalDistance, ms
+                ));
+                appendMessage(String.format(
+                        "GUI(Local): Optimized with CNET • Delivered: %d • Total distance: %.1f • Time: %dms • Rounds: %d",
+                        r.delivered, r.totalDistance, ms, r.rounds
                 ));
             } else {
                 GreedyOptimizer.Result r = GreedyOptimizer.solve(items, numDAs, cap, dv);
@@ -540,24 +551,30 @@ public class MasUI extends JFrame {
         btnRestartJade.setEnabled(running);
         btnShutdownJade.setEnabled(running);
         btnOptimizeJade.setEnabled(running);
+        btnCancelJade.setEnabled(running);
     }
 
     // ---- Called by GuiAgent to paint routes + set status --------------------
+    // (final results and GA progress; null routes = keep the current drawing, status only)
     public void updateRoutes(Map<String, List<Item>> newRoutes, String statusText) {
         // snapshot so they're effectively final inside invokeLater
         final Map<String, List<Item>> freshRoutes =
-                (newRoutes == null ? Collections.emptyMap() : new LinkedHashMap<>(newRoutes));
+                (newRoutes == null ? null : new LinkedHashMap<>(newRoutes));
         final String freshStatus = statusText;
 
-        System.out.println("[MasUI] updateRoutes called with " + freshRoutes.size() + " routes");
-        System.out.println("[MasUI] Routes updated: " + freshRoutes.keySet());
+        if (freshRoutes != null) {
+            System.out.println("[MasUI] updateRoutes called with " + freshRoutes.size() + " routes");
+            System.out.println("[MasUI] Routes updated: " + freshRoutes.keySet());
+        }
         if (freshStatus != null && !freshStatus.isEmpty()) {
             System.out.println("[MasUI] Setting status: " + freshStatus);
         }
 
         SwingUtilities.invokeLater(() -> {
-            routes.clear();
-            routes.putAll(freshRoutes);
+            if (freshRoutes != null) {
+                routes.clear();
+                routes.putAll(freshRoutes);
+            }
 
             if (freshStatus != null && !freshStatus.isEmpty()) {
                 status(freshStatus);
@@ -0,0 +1,181 @@
+package vrp;
+
+import javax.swing.AbstractListModel;
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * List model for the Messages panel: a fixed-size ring of the newest lines.
+ * Lines may be added from any thread; they queue up and are moved into the ring
+ * by a single EDT task per burst, with one intervalRemoved (evicted lines) and
+ * one intervalAdded event however many lines arrived.
+ *
+ * An optional case-insensitive filter shows only matching lines. The filtered
+ * view is a ring of line sequence numbers into the same buffer, so filtering
+ * never copies the text.
+ */
+public class MessageListModel extends AbstractListModel<String> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String[] lines;
+    private long first;        // sequence number of the oldest line in the ring
+    private int size;
+
+    // filtered view: sequence numbers of matching lines, oldest first (EDT only)
+    private String filter;     // null = show everything
+    private final long[] matches;
+    private int matchHead;
+    private int matchCount;
+
+    // lines added off the EDT, waiting for the next drain
+    private final Object lock = new Object();
+    private List<String> pending = new ArrayList<>();
+    private boolean scheduled;
+
+    public MessageListModel(int capacity) {
+        int cap = Math.max(16, capacity);
+        this.lines = new String[cap];
+        this.matches = new long[cap];
+    }
+
+    public int capacity() {
+        return lines.length;
+    }
+
+    // --- Adding lines (any thread) ---
+
+    public void add(String line) {
+        synchronized (lock) {
+            pending.add(line);
+            scheduleDrain();
+        }
+    }
+
+    public void addAll(List<String> batch) {
+        if (batch.isEmpty()) return;
+        synchronized (lock) {
+            pending.addAll(batch);
+            scheduleDrain();
+        }
+    }
+
+    // caller holds lock
+    private void scheduleDrain() {
+        if (scheduled) return;
+        scheduled = true;
+        SwingUtilities.invokeLater(this::drain);
+    }
+
+    // EDT: move every queued line into the ring
+    private void drain() {
+        List<String> batch;
+        synchronized (lock) {
+            batch = pending;
+            pending = new ArrayList<>();
+            scheduled = false;
+        }
+        // lines that would be evicted in the same batch are never shown
+        int skip = Math.max(0, batch.size() - lines.length);
+        int n = batch.size() - skip;
+        if (n == 0) return;
+
+        int evicted = Math.max(0, size + n - lines.length);
+        first += evicted;
+        size -= evicted;
+        long seq = first + size;
+        for (int i = skip; i < batch.size(); i++) {
+            lines[slot(seq++)] = batch.get(i);
+        }
+        size += n;
+
+        if (filter == null) {
+            if (evicted > 0) fireIntervalRemoved(this, 0, evicted - 1);
+            fireIntervalAdded(this, size - n, size - 1);
+            return;
+        }
+
+        // filtered: drop matches that fell out of the ring, then append new ones
+        int removed = 0;
+        while (matchCount > 0 && matches[matchHead] < first) {
+            matchHead = (matchHead + 1) % matches.length;
+            matchCount--;
+            removed++;
+        }
+        if (removed > 0) fireIntervalRemoved(this, 0, removed - 1);
+
+        int before = matchCount;
+        for (long s = first + size - n; s < first + size; s++) {
+            if (matchesFilter(lines[slot(s)])) {
+                matches[(matchHead + matchCount++) % matches.length] = s;
+            }
+        }
+        if (matchCount > before) fireIntervalAdded(this, before, matchCount - 1);
+    }
+
+    // --- Filter (EDT) ---
+
+    /** Shows only lines containing text (case-insensitive); null or blank shows all. */
+    public void setFilter(String text) {
+        String f = (text == null || text.trim().isEmpty()) ? null : text.trim();
+        if (f == null ? filter == null : f.equals(filter)) return;
+
+        int oldSize = getSize();
+        filter = f;
+        matchHead = 0;
+        matchCount = 0;
+        if (filter != null) {
+            for (long s = first; s < first + size; s++) {
+                if (matchesFilter(lines[slot(s)])) matches[matchCount++] = s;
+            }
+        }
+
+        int newSize = getSize();
+        if (oldSize > newSize) fireIntervalRemoved(this, newSize, oldSize - 1);
+        if (newSize > oldSize) fireIntervalAdded(this, oldSize, newSize - 1);
+        if (Math.min(oldSize, newSize) > 0) fireContentsChanged(this, 0, Math.min(oldSize, newSize) - 1);
+    }
+
+    public String getFilter() {
+        return filter;
+    }
+
+    /** Empties the buffer (EDT). */
+    public void clear() {
+        int old = getSize();
+        for (long s = first; s < first + size; s++) lines[slot(s)] = null;
+        first += size;
+        size = 0;
+        matchHead = 0;
+        matchCount = 0;
+        if (old > 0) fireIntervalRemoved(this, 0, old - 1);
+    }
+
+    // --- ListModel ---
+
+    @Override
+    public int getSize() {
+        return (filter == null) ? size : matchCount;
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        long seq = (filter == null) ? first + index : matches[(matchHead + index) % matches.length];
+        return lines[slot(seq)];
+    }
+
+    private int slot(long seq) {
+        return (int) (seq % lines.length);
+    }
+
+    // contains, ignoring case, without lower-casing copies of every line
+    private boolean matchesFilter(String line) {
+        if (line == null) return false;
+        int n = filter.length();
+        for (int i = 0, last = line.length() - n; i <= last; i++) {
+            if (line.regionMatches(true, i, filter, 0, n)) return true;
+        }
+        return false;
+    }
+}
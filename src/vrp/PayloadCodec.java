@@ -0,0 +1,294 @@
+package vrp;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.*;
+import java.lang.reflect.Type;
+import java.util.*;
+
+/**
+ * Encoding of the ACL payloads that carry items and routes:
+ *  - optimize-request content: the item table of the request
+ *  - optimization-result content (and Progress routes): the routes of each DA
+ *  - route content: one DA's RouteInfo
+ *
+ * The requester picks a codec with the user-defined parameter "codec" on its
+ * optimize-request; the MRA answers (and talks to the DAs) with the same one and
+ * tags every message with it. A missing parameter means JSON, the original format.
+ *
+ *  JSON    reflective Gson of Item objects (routes repeat every item)
+ *  INDEX   JSON, but routes are index arrays into the request's item table
+ *  BINARY  index routes; items and routes as compact binary, base64 encoded
+ *
+ * With INDEX and BINARY the item table goes out once, in the request; the
+ * requester keeps it to turn result indices back into items.
+ */
+public abstract class PayloadCodec {
+
+    public static final String PARAM = "codec";
+
+    public static final PayloadCodec JSON = new JsonCodec();
+    public static final PayloadCodec INDEX = new IndexCodec();
+    public static final PayloadCodec BINARY = new BinaryCodec();
+
+    /** Codec by name (case-insensitive); JSON when missing or unknown. */
+    public static PayloadCodec forName(String name) {
+        if (name != null) {
+            switch (name.trim().toUpperCase()) {
+                case "INDEX": return INDEX;
+                case "BINARY": return BINARY;
+                default: break;
+            }
+        }
+        return JSON;
+    }
+
+    /** Value for the "codec" parameter. */
+    public abstract String name();
+
+    public abstract String encodeItems(List<Item> items);
+
+    public abstract List<Item> decodeItems(String content);
+
+    /** Routes as positions in table (the request's items, in request order). */
+    public abstract String encodeRoutes(Map<String, int[]> routes, List<Item> table);
+
+    /** Inverse of encodeRoutes; table is the item list that was sent with the request. */
+    public abstract Map<String, List<Item>> decodeRoutes(String content, List<Item> table);
+
+    public abstract String encodeRoute(ManagerAgent.RouteInfo route);
+
+    public abstract ManagerAgent.RouteInfo decodeRoute(String content);
+
+    /** True when decodeRoutes needs the request's item table. */
+    public boolean needsTable() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return name();
+    }
+
+    // --- Shared helpers ---
+
+    static List<Item> resolve(int[] stops, List<Item> table) {
+        if (table == null) throw new IllegalArgumentException("Item table of the request is not known.");
+        List<Item> route = new ArrayList<>(stops.length);
+        for (int idx : stops) route.add(table.get(idx));
+        return route;
+    }
+
+    /* ================== JSON (original format) ================== */
+
+    private static final class JsonCodec extends PayloadCodec {
+        private final Gson gson = new Gson();
+        private final Type itemList = new TypeToken<List<Item>>() {}.getType();
+        private final Type routeMap = new TypeToken<Map<String, List<Item>>>() {}.getType();
+
+        @Override public String name() { return "JSON"; }
+
+        @Override public String encodeItems(List<Item> items) { return gson.toJson(items); }
+
+        @Override public List<Item> decodeItems(String content) { return gson.fromJson(content, itemList); }
+
+        @Override
+        public String encodeRoutes(Map<String, int[]> routes, List<Item> table) {
+            Map<String, List<Item>> full = new LinkedHashMap<>();
+            for (Map.Entry<String, int[]> e : routes.entrySet()) {
+                full.put(e.getKey(), resolve(e.getValue(), table));
+            }
+            return gson.toJson(full);
+        }
+
+        @Override
+        public Map<String, List<Item>> decodeRoutes(String content, List<Item> table) {
+            return gson.fromJson(content, routeMap);
+        }
+
+        @Override public String encodeRoute(ManagerAgent.RouteInfo route) { return gson.toJson(route); }
+
+        @Override
+        public ManagerAgent.RouteInfo decodeRoute(String content) {
+            return gson.fromJson(content, ManagerAgent.RouteInfo.class);
+        }
+
+        @Override public boolean needsTable() { return false; }
+    }
+
+    /* ================== INDEX (JSON with index routes) ================== */
+
+    private static final class IndexCodec extends PayloadCodec {
+        private final Gson gson = new Gson();
+        private final Type indexMap = new TypeToken<LinkedHashMap<String, int[]>>() {}.getType();
+
+        @Override public String name() { return "INDEX"; }
+
+        @Override public String encodeItems(List<Item> items) { return JSON.encodeItems(items); }
+
+        @Override public List<Item> decodeItems(String content) { return JSON.decodeItems(content); }
+
+        @Override
+        public String encodeRoutes(Map<String, int[]> routes, List<Item> table) {
+            return gson.toJson(routes);
+        }
+
+        @Override
+        public Map<String, List<Item>> decodeRoutes(String content, List<Item> table) {
+            Map<String, int[]> idx = gson.fromJson(content, indexMap);
+            Map<String, List<Item>> out = new LinkedHashMap<>();
+            for (Map.Entry<String, int[]> e : idx.entrySet()) {
+                out.put(e.getKey(), resolve(e.getValue(), table));
+            }
+            return out;
+        }
+
+        // a DA has no item table: its route is its own small table
+        @Override public String encodeRoute(ManagerAgent.RouteInfo route) { return JSON.encodeRoute(route); }
+
+        @Override public ManagerAgent.RouteInfo decodeRoute(String content) { return JSON.decodeRoute(content); }
+    }
+
+    /* ================== BINARY (base64) ================== */
+
+    // Layout (big-endian, DataOutput): a version byte, then
+    //   items:  varint n, n ids (UTF), n x, n y (double), n demand, n start, n end (varint)
+    //   routes: varint count, per route: name (UTF), varint length, varint indices
+    //   route:  double distance, then an item table (the stops in route order)
+    private static final class BinaryCodec extends PayloadCodec {
+        private static final int VERSION = 1;
+
+        @Override public String name() { return "BINARY"; }
+
+        @Override
+        public String encodeItems(List<Item> items) {
+            return write(out -> writeItems(out, items));
+        }
+
+        @Override
+        public List<Item> decodeItems(String content) {
+            return read(content, BinaryCodec::readItems);
+        }
+
+        @Override
+        public String encodeRoutes(Map<String, int[]> routes, List<Item> table) {
+            return write(out -> {
+                writeVarInt(out, routes.size());
+                for (Map.Entry<String, int[]> e : routes.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    int[] stops = e.getValue();
+                    writeVarInt(out, stops.length);
+                    for (int idx : stops) writeVarInt(out, idx);
+                }
+            });
+        }
+
+        @Override
+        public Map<String, List<Item>> decodeRoutes(String content, List<Item> table) {
+            return read(content, in -> {
+                int count = readVarInt(in);
+                Map<String, List<Item>> out = new LinkedHashMap<>();
+                for (int r = 0; r < count; r++) {
+                    String name = in.readUTF();
+                    int[] stops = new int[readVarInt(in)];
+                    for (int i = 0; i < stops.length; i++) stops[i] = readVarInt(in);
+                    out.put(name, resolve(stops, table));
+                }
+                return out;
+            });
+        }
+
+        @Override
+        public String encodeRoute(ManagerAgent.RouteInfo route) {
+            return write(out -> {
+                out.writeDouble(route.distance);
+                writeItems(out, route.route == null ? Collections.emptyList() : route.route);
+            });
+        }
+
+        @Override
+        public ManagerAgent.RouteInfo decodeRoute(String content) {
+            return read(content, in -> {
+                double distance = in.readDouble();
+                return new ManagerAgent.RouteInfo(readItems(in), distance);
+            });
+        }
+
+        private static void writeItems(DataOutputStream out, List<Item> items) throws IOException {
+            int n = items.size();
+            writeVarInt(out, n);
+            for (Item it : items) out.writeUTF(it.getId());
+            for (Item it : items) out.writeDouble(it.getX());
+            for (Item it : items) out.writeDouble(it.getY());
+            for (Item it : items) writeVarInt(out, it.getDemand());
+            for (Item it : items) writeVarInt(out, it.getStartTime());
+            for (Item it : items) writeVarInt(out, it.getEndTime());
+        }
+
+        private static List<Item> readItems(DataInputStream in) throws IOException {
+            int n = readVarInt(in);
+            String[] ids = new String[n];
+            double[] x = new double[n];
+            double[] y = new double[n];
+            int[] demand = new int[n];
+            int[] start = new int[n];
+            for (int i = 0; i < n; i++) ids[i] = in.readUTF();
+            for (int i = 0; i < n; i++) x[i] = in.readDouble();
+            for (int i = 0; i < n; i++) y[i] = in.readDouble();
+            for (int i = 0; i < n; i++) demand[i] = readVarInt(in);
+            for (int i = 0; i < n; i++) start[i] = readVarInt(in);
+            List<Item> items = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                items.add(new Item(ids[i], x[i], y[i], demand[i], start[i], readVarInt(in)));
+            }
+            return items;
+        }
+
+        // zig-zag varint: small values (indices, demands, window bounds) take 1-2 bytes
+        private static void writeVarInt(DataOutputStream out, int v) throws IOException {
+            int z = (v << 1) ^ (v >> 31);
+            while ((z & ~0x7F) != 0) {
+                out.writeByte((z & 0x7F) | 0x80);
+                z >>>= 7;
+            }
+            out.writeByte(z);
+        }
+
+        private static int readVarInt(DataInputStream in) throws IOException {
+            int z = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = in.readUnsignedByte();
+                z |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return (z >>> 1) ^ -(z & 1);
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        private interface Writer { void write(DataOutputStream out) throws IOException; }
+
+        private interface Reader<T> { T read(DataInputStream in) throws IOException; }
+
+        private static String write(Writer w) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeByte(VERSION);
+                w.write(out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);   // ByteArrayOutputStream does not throw
+            }
+            return Base64.getEncoder().encodeToString(bytes.toByteArray());
+        }
+
+        private static <T> T read(String content, Reader<T> r) {
+            byte[] bytes = Base64.getDecoder().decode(content);
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+                int version = in.readUnsignedByte();
+                if (version != VERSION) throw new IOException("Unsupported payload version " + version);
+                return r.read(in);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Bad binary payload: " + e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,498 @@
+package vrp;
+
+import java.util.Arrays;
+
+/**
+ * Local search over a set of routes given as item indices (the depot is implicit
+ * at both ends of every route).
+ *
+ * Moves are only tried between an item and its k nearest neighbours, which are
+ * computed once per instance. Every move's distance change is evaluated in O(1)
+ * from the edges it removes and adds:
+ * <ul>
+ *   <li>2-opt inside a route, including the edges to and from the depot</li>
+ *   <li>Or-opt: a chain of 1..3 stops moved elsewhere in its route</li>
+ *   <li>relocate: one stop moved into another route</li>
+ *   <li>exchange: two stops of different routes swapped</li>
+ * </ul>
+ * Items whose surroundings did not change are skipped (don't-look bits); an item
+ * becomes active again when a move touches one of its route neighbours.
+ *
+ * Only improving moves are checked for feasibility: capacity and the per-route
+ * distance limit from running totals, time windows by replaying the stops the
+ * move rewrites and comparing the arrival at the first untouched stop with the
+ * latest start that keeps the rest of the route on time. Routes that are
+ * feasible going in stay feasible.
+ */
+public final class RouteLocalSearch {
+
+    public static final int DEFAULT_NEIGHBOURS = 10;
+
+    private static final int MAX_CHAIN = 3;      // longest Or-opt chain
+    private static final double EPS = 1e-9;      // minimum gain for a move to count
+
+    private final ItemStore store;
+    private final DistanceOracle oracle;
+    private final int[] load;                    // null = every stop counts 1 against capacity
+    private final int k;
+    private final int[] neighbours;              // item i: [i*k, i*k+k), nearest first, -1 padded
+    private final boolean windows;               // false when no item has a time window to check
+
+    // scratch state per thread, so one instance can serve a parallel GA
+    private final ThreadLocal<Workspace> workspace = ThreadLocal.withInitial(Workspace::new);
+
+    private RouteLocalSearch(ItemStore store, DistanceOracle oracle, int[] load, int neighbourCount) {
+        this.store = store;
+        this.oracle = oracle;
+        this.load = load;
+        this.k = Math.max(0, Math.min(neighbourCount, store.size() - 1));
+        this.neighbours = nearestNeighbours(store, oracle, k);
+
+        boolean any = false;
+        for (int i = 0; i < store.size() && !any; i++) {
+            any = store.startTime(i) > 0 || store.endTime(i) != Integer.MAX_VALUE;
+        }
+        this.windows = any;
+    }
+
+    // --- Factories ---
+
+    /** Capacity is measured in item demand (GreedyOptimizer's rule). */
+    public static RouteLocalSearch byDemand(ItemStore store, DistanceOracle oracle) {
+        int[] demand = new int[store.size()];
+        for (int i = 0; i < demand.length; i++) demand[i] = store.demand(i);
+        return new RouteLocalSearch(store, oracle, demand, DEFAULT_NEIGHBOURS);
+    }
+
+    /** Capacity is a number of stops (SimpleGAOptimizer's decoder rule). */
+    public static RouteLocalSearch byStopCount(ItemStore store, DistanceOracle oracle) {
+        return new RouteLocalSearch(store, oracle, null, DEFAULT_NEIGHBOURS);
+    }
+
+    // k nearest items of every item, found with the grid (removing hits so the next query skips them)
+    private static int[] nearestNeighbours(ItemStore store, DistanceOracle oracle, int k) {
+        int n = store.size();
+        int[] out = new int[n * k];
+        Arrays.fill(out, -1);
+        if (k == 0) return out;
+
+        SpatialGrid grid = new SpatialGrid(store, oracle);
+        SpatialGrid.Filter any = (idx, d) -> true;
+        for (int i = 0; i < n; i++) {
+            int base = i * k;
+            grid.remove(i);
+            int found = 0;
+            while (found < k) {
+                int j = grid.nearest(i, Double.POSITIVE_INFINITY, any);
+                if (j < 0) break;
+                grid.remove(j);
+                out[base + found++] = j;
+            }
+            grid.add(i);
+            for (int f = 0; f < found; f++) grid.add(out[base + f]);
+        }
+        return out;
+    }
+
+    /* ================== Entry points ================== */
+
+    /**
+     * Improves the routes in place and returns their total length. routes[v] holds
+     * lengths[v] stops; a route array may be replaced by a larger one when a stop
+     * is relocated into it.
+     */
+    public double improve(int[][] routes, int[] lengths, int capacity, double dv) {
+        Workspace w = workspace.get();
+        w.reset(store.size(), routes, lengths);
+
+        for (int r = 0; r < routes.length; r++) {
+            reindex(w, routes, lengths, r);
+            for (int p = 0; p < lengths[r]; p++) w.push(routes[r][p]);
+        }
+
+        while (w.queued > 0) {
+            int u = w.poll();
+            if (w.routeOf[u] >= 0 && improveItem(w, routes, lengths, u, capacity, dv)) {
+                w.push(u);
+            }
+        }
+
+        // exact lengths (the running ones have absorbed many small deltas)
+        double total = 0.0;
+        for (int r = 0; r < routes.length; r++) {
+            total += oracle.routeLength(routes[r], lengths[r]);
+            for (int p = 0; p < lengths[r]; p++) w.routeOf[routes[r][p]] = -1;
+        }
+        return total;
+    }
+
+    /** Intra-route moves only, no capacity or distance limit. */
+    public void improveRoute(int[] route, int len) {
+        improve(new int[][] { route }, new int[] { len }, Integer.MAX_VALUE, Double.POSITIVE_INFINITY);
+    }
+
+    /* ================== Move search ================== */
+
+    private boolean improveItem(Workspace w, int[][] routes, int[] lengths,
+                                int u, int capacity, double dv) {
+        int base = u * k;
+        for (int t = 0; t < k; t++) {
+            int v = neighbours[base + t];
+            if (v < 0) break;
+            if (w.routeOf[v] < 0) continue;  // not delivered in this solution
+
+            if (w.routeOf[v] == w.routeOf[u]) {
+                if (twoOpt(w, routes, lengths, u, v)) return true;
+                if (orOpt(w, routes, lengths, u, v)) return true;
+            } else {
+                if (relocate(w, routes, lengths, u, v, capacity, dv)) return true;
+                if (exchange(w, routes, lengths, u, v, capacity, dv)) return true;
+            }
+        }
+        return false;
+    }
+
+    // --- 2-opt: make u and v adjacent by reversing the stops between them ---
+    private boolean twoOpt(Workspace w, int[][] routes, int[] lengths, int u, int v) {
+        int r = w.routeOf[u];
+        int[] route = routes[r];
+        int len = lengths[r];
+        int i = Math.min(w.posOf[u], w.posOf[v]);
+        int j = Math.max(w.posOf[u], w.posOf[v]);
+        if (j == i + 1) return false;
+
+        // (i, i+1) + (j, j+1) -> (i, j) + (i+1, j+1): reverse i+1..j
+        int a = route[i], b = route[i + 1], c = route[j], d = node(route, len, j + 1);
+        double delta = dist(a, c) + dist(b, d) - dist(a, b) - dist(c, d);
+        if (delta < -EPS && reverseIfFeasible(w, routes, lengths, r, i + 1, j, delta)) return true;
+
+        // (i-1, i) + (j-1, j) -> (i-1, j-1) + (i, j): reverse i..j-1
+        a = node(route, len, i - 1);
+        b = route[i];
+        c = route[j - 1];
+        d = route[j];
+        delta = dist(a, c) + dist(b, d) - dist(a, b) - dist(c, d);
+        return delta < -EPS && reverseIfFeasible(w, routes, lengths, r, i, j - 1, delta);
+    }
+
+    private boolean reverseIfFeasible(Workspace w, int[][] routes, int[] lengths,
+                                      int r, int from, int to, double delta) {
+        int[] route = routes[r];
+        if (windows) {
+            int[] buf = w.buffer(to - from + 1);
+            for (int p = to, q = 0; p >= from; p--) buf[q++] = route[p];
+            if (!fits(w, routes, lengths, r, from - 1, buf, to - from + 1, to + 1)) return false;
+        }
+
+        for (int lo = from, hi = to; lo < hi; lo++, hi--) {
+            int t = route[lo];
+            route[lo] = route[hi];
+            route[hi] = t;
+        }
+        applied(w, routes, lengths, r, from, to, delta, 0);
+        return true;
+    }
+
+    // --- Or-opt: move a chain starting or ending at u next to v ---
+    private boolean orOpt(Workspace w, int[][] routes, int[] lengths, int u, int v) {
+        int r = w.routeOf[u];
+        int len = lengths[r];
+        int pu = w.posOf[u];
+        int pv = w.posOf[v];
+
+        for (int chain = 1; chain <= MAX_CHAIN; chain++) {
+            // u first in the chain, chain goes after v / before v
+            int s = pu, e = pu + chain - 1;
+            if (e < len) {
+                if (moveChain(w, routes, lengths, r, s, e, pv)) return true;
+                if (moveChain(w, routes, lengths, r, s, e, pv - 1)) return true;
+            }
+            // u last in the chain (same chain as above when it is a single stop)
+            s = pu - chain + 1;
+            e = pu;
+            if (chain > 1 && s >= 0) {
+                if (moveChain(w, routes, lengths, r, s, e, pv)) return true;
+                if (moveChain(w, routes, lengths, r, s, e, pv - 1)) return true;
+            }
+        }
+        return false;
+    }
+
+    // Moves route[s..e] so it follows position ip (-1 = right after the depot)
+    private boolean moveChain(Workspace w, int[][] routes, int[] lengths,
+                              int r, int s, int e, int ip) {
+        if (ip >= s - 1 && ip <= e) return false; // already there, or inside the chain
+        int[] route = routes[r];
+        int len = lengths[r];
+
+        int p = node(route, len, s - 1), q = node(route, len, e + 1);
+        int a = route[s], b = route[e];
+        int x = node(route, len, ip), y = node(route, len, ip + 1);
+        double delta = dist(p, q) - dist(p, a) - dist(b, q)
+                + dist(x, a) + dist(b, y) - dist(x, y);
+        if (delta >= -EPS) return false;
+
+        // rewritten stretch lo..hi, in its new order
+        int chain = e - s + 1;
+        int lo, hi;
+        int[] buf;
+        if (ip > e) {
+            lo = s;
+            hi = ip;
+            buf = w.buffer(hi - lo + 1);
+            int m = ip - e;
+            System.arraycopy(route, e + 1, buf, 0, m);
+            System.arraycopy(route, s, buf, m, chain);
+        } else {
+            lo = ip + 1;
+            hi = e;
+            buf = w.buffer(hi - lo + 1);
+            System.arraycopy(route, s, buf, 0, chain);
+            System.arraycopy(route, ip + 1, buf, chain, s - ip - 1);
+        }
+        if (!fits(w, routes, lengths, r, lo - 1, buf, hi - lo + 1, hi + 1)) return false;
+
+        System.arraycopy(buf, 0, route, lo, hi - lo + 1);
+        applied(w, routes, lengths, r, lo, hi, delta, 0);
+        return true;
+    }
+
+    // --- Relocate: move u next to v in v's route ---
+    private boolean relocate(Workspace w, int[][] routes, int[] lengths,
+                             int u, int v, int capacity, double dv) {
+        int ru = w.routeOf[u], rv = w.routeOf[v];
+        if (w.load[rv] + loadOf(u) > capacity) return false;
+
+        int[] src = routes[ru];
+        int pu = w.posOf[u];
+        int pu0 = node(src, lengths[ru], pu - 1), pu1 = node(src, lengths[ru], pu + 1);
+        double removed = dist(pu0, pu1) - dist(pu0, u) - dist(u, pu1);
+
+        int pv = w.posOf[v];
+        for (int ip = pv - 1; ip <= pv; ip++) {
+            int[] dst = routes[rv];
+            int x = node(dst, lengths[rv], ip), y = node(dst, lengths[rv], ip + 1);
+            double added = dist(x, u) + dist(u, y) - dist(x, y);
+            if (removed + added >= -EPS) continue;
+            if (w.length[rv] + added > dv) continue;
+
+            int[] buf = w.buffer(1);
+            buf[0] = u;
+            if (!fits(w, routes, lengths, ru, pu - 1, buf, 0, pu + 1)) continue;
+            if (!fits(w, routes, lengths, rv, ip, buf, 1, ip + 1)) continue;
+
+            // take u out of its route
+            System.arraycopy(src, pu + 1, src, pu, lengths[ru] - pu - 1);
+            lengths[ru]--;
+            // and insert it after ip
+            if (lengths[rv] == dst.length) {
+                dst = routes[rv] = Arrays.copyOf(dst, Math.max(4, dst.length * 2));
+            }
+            System.arraycopy(dst, ip + 1, dst, ip + 2, lengths[rv] - ip - 1);
+            dst[ip + 1] = u;
+            lengths[rv]++;
+
+            applied(w, routes, lengths, ru, pu, lengths[ru] - 1, removed, -loadOf(u));
+            applied(w, routes, lengths, rv, ip + 1, lengths[rv] - 1, added, loadOf(u));
+            return true;
+        }
+        return false;
+    }
+
+    // --- Exchange: swap u with the stop just before or after v ---
+    private boolean exchange(Workspace w, int[][] routes, int[] lengths,
+                             int u, int v, int capacity, double dv) {
+        int ru = w.routeOf[u], rv = w.routeOf[v];
+        int[] ra = routes[ru], rb = routes[rv];
+        int la = lengths[ru], lb = lengths[rv];
+        int pu = w.posOf[u];
+        int u0 = node(ra, la, pu - 1), u1 = node(ra, la, pu + 1);
+
+        for (int side = -1; side <= 1; side += 2) {
+            int px = w.posOf[v] + side;
+            if (px < 0 || px >= lb) continue;
+            int x = rb[px];
+            int x0 = node(rb, lb, px - 1), x1 = node(rb, lb, px + 1);
+
+            double da = dist(u0, x) + dist(x, u1) - dist(u0, u) - dist(u, u1);
+            double db = dist(x0, u) + dist(u, x1) - dist(x0, x) - dist(x, x1);
+            if (da + db >= -EPS) continue;
+            if (w.length[ru] + da > dv || w.length[rv] + db > dv) continue;
+            if (w.load[ru] - loadOf(u) + loadOf(x) > capacity) continue;
+            if (w.load[rv] - loadOf(x) + loadOf(u) > capacity) continue;
+
+            int[] buf = w.buffer(1);
+            buf[0] = x;
+            if (!fits(w, routes, lengths, ru, pu - 1, buf, 1, pu + 1)) continue;
+            buf[0] = u;
+            if (!fits(w, routes, lengths, rv, px - 1, buf, 1, px + 1)) continue;
+
+            ra[pu] = x;
+            rb[px] = u;
+            applied(w, routes, lengths, ru, pu, pu, da, loadOf(x) - loadOf(u));
+            applied(w, routes, lengths, rv, px, px, db, loadOf(u) - loadOf(x));
+            return true;
+        }
+        return false;
+    }
+
+    /* ================== Feasibility and bookkeeping ================== */
+
+    /**
+     * Would route r still meet every time window if the stops between positions
+     * before and after (exclusive) were replaced by buf[0..count)?
+     */
+    private boolean fits(Workspace w, int[][] routes, int[] lengths,
+                         int r, int before, int[] buf, int count, int after) {
+        if (!windows) return true;
+        int[] route = routes[r];
+        int len = lengths[r];
+        double t = (before < 0) ? 0.0 : w.arrive[r][before];
+        int prev = node(route, len, before);
+
+        for (int q = 0; q < count; q++) {
+            int x = buf[q];
+            t = Math.max(t + dist(prev, x), store.startTime(x));
+            if (t > store.endTime(x)) return false;
+            prev = x;
+        }
+        if (after >= len) return true; // no deadline for the return to the depot
+        return t + dist(prev, route[after]) <= w.latest[r][after];
+    }
+
+    // After a move changed the stops at positions lo..hi of route r: update its
+    // bookkeeping and wake the stops around the change
+    private void applied(Workspace w, int[][] routes, int[] lengths,
+                         int r, int lo, int hi, double delta, int loadDelta) {
+        int[] route = routes[r];
+        int len = lengths[r];
+        for (int p = lo; p <= hi; p++) {
+            w.routeOf[route[p]] = r;
+            w.posOf[route[p]] = p;
+        }
+        w.length[r] += delta;
+        w.load[r] += loadDelta;
+        if (windows) retime(w, route, len, r, lo, hi);
+
+        if (lo - 1 >= 0) w.push(route[lo - 1]);
+        if (lo < len) w.push(route[lo]);
+        if (hi >= 0 && hi < len) w.push(route[hi]);
+        if (hi + 1 < len) w.push(route[hi + 1]);
+    }
+
+    // Positions, load, length and time-window slack of route r, from scratch
+    private void reindex(Workspace w, int[][] routes, int[] lengths, int r) {
+        int[] route = routes[r];
+        int len = lengths[r];
+        int routeLoad = 0;
+        for (int p = 0; p < len; p++) {
+            int x = route[p];
+            w.routeOf[x] = r;
+            w.posOf[x] = p;
+            routeLoad += loadOf(x);
+        }
+        w.load[r] = routeLoad;
+        w.length[r] = oracle.routeLength(route, len);
+        if (windows) retime(w, route, len, r, 0, len - 1);
+    }
+
+    // Recomputes service starts forwards from lo and latest starts backwards from hi,
+    // stopping once past the changed stops and back in step with the old values
+    private void retime(Workspace w, int[] route, int len, int r, int lo, int hi) {
+        double[] arrive = w.arrive[r] = grow(w.arrive[r], route.length);
+        double[] latest = w.latest[r] = grow(w.latest[r], route.length);
+
+        double t = (lo > 0) ? arrive[lo - 1] : 0.0;
+        int prev = node(route, len, lo - 1);
+        for (int p = Math.max(lo, 0); p < len; p++) {
+            int x = route[p];
+            t = Math.max(t + dist(prev, x), store.startTime(x));
+            if (p > hi && t == arrive[p]) break;
+            arrive[p] = t;
+            prev = x;
+        }
+
+        // latest service start at p that still lets every later stop make its window
+        for (int p = Math.min(hi, len - 1); p >= 0; p--) {
+            int x = route[p];
+            double l = store.endTime(x);
+            if (p + 1 < len) l = Math.min(l, latest[p + 1] - dist(x, route[p + 1]));
+            if (p < lo && l == latest[p]) break;
+            latest[p] = l;
+        }
+    }
+
+    private static double[] grow(double[] a, int size) {
+        if (a == null) return new double[Math.max(size, 4)];
+        return (a.length >= size) ? a : Arrays.copyOf(a, size);
+    }
+
+    private int loadOf(int item) {
+        return (load == null) ? 1 : load[item];
+    }
+
+    private double dist(int a, int b) {
+        return oracle.dist(a, b);
+    }
+
+    // Stop at position p, or the depot for positions outside the route
+    private static int node(int[] route, int len, int p) {
+        return (p >= 0 && p < len) ? route[p] : DistanceOracle.DEPOT;
+    }
+
+    private static final class Workspace {
+        int[] routeOf = new int[0];   // item -> route, -1 when not in any route
+        int[] posOf = new int[0];     // item -> position in its route
+
+        // FIFO of items whose don't-look bit is cleared
+        int[] queue = new int[0];
+        boolean[] inQueue = new boolean[0];
+        int head;
+        int queued;
+
+        double[][] arrive;            // per route: service start at each position
+        double[][] latest;            // per route: latest service start keeping the rest on time
+        double[] length;
+        int[] load;
+
+        private int[] buf = new int[16];
+
+        void reset(int n, int[][] routes, int[] lengths) {
+            if (routeOf.length != n) {
+                routeOf = new int[n];
+                posOf = new int[n];
+                queue = new int[n];
+                inQueue = new boolean[n];
+                Arrays.fill(routeOf, -1);
+            }
+            head = 0;
+            queued = 0;
+            int m = routes.length;
+            if (length == null || length.length < m) {
+                arrive = new double[m][];
+                latest = new double[m][];
+                length = new double[m];
+                load = new int[m];
+            }
+        }
+
+        void push(int item) {
+            if (inQueue[item]) return;
+            inQueue[item] = true;
+            queue[(head + queued++) % queue.length] = item;
+        }
+
+        int poll() {
+            int item = queue[head];
+            head = (head + 1) % queue.length;
+            queued--;
+            inQueue[item] = false;
+            return item;
+        }
+
+        int[] buffer(int size) {
+            if (buf.length < size) buf = new int[Math.max(size, buf.length * 2)];
+            return buf;
+        }
+    }
+}
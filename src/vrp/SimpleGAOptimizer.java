@@ -1,19 +1,80 @@
 package vrp;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 public class SimpleGAOptimizer {
 
     public static class Result {
         public final List<List<Item>> routes = new ArrayList<>();
+        // same routes as indices into the ItemStore that was solved
+        public final List<int[]> routeIndices = new ArrayList<>();
         public double totalDistance;
         public int itemsDelivered;
+        // fitness cache counters of the run that produced this result (0 for a plain decode)
+        public long cacheHits;
+        public long cacheMisses;
+        // generations evolved and which limit ended the run
+        public int generations;
+        public StopReason stopReason;
     }
 
-    private final Random rand = new Random();
+    /** Which limit ended a solve. */
+    public enum StopReason { GENERATIONS, TIME_BUDGET, STALLED, CANCELLED }
+
+    /** Told about each new best solution of an anytime solve, on the solving thread. */
+    public interface ProgressListener {
+        void improved(Evolution evolution);
+    }
+
+    // Fitness cache size, in multiples of the population size...
+    private static final int CACHE_GENERATIONS = 8;
+    // ...but never more than this many genes in total (32 MB of chromosomes)
+    private static final long CACHE_MAX_GENES = 1L << 23;
+
+    // All randomness is derived from this seed, so a given seed always yields the
+    // same result. Each child of each generation gets its own SplittableRandom
+    // split off a per-solve root in a fixed order, which keeps the outcome
+    // identical whatever the number of threads breeding and evaluating.
+    private final long seed;
+
+    // null = breed and evaluate on the calling thread
+    private final ForkJoinPool pool;
+
+    private ProgressListener progress;
+
+    // set from another thread to end an anytime solve after the current generation
+    private volatile boolean cancelled;
+
+    // Unseeded, single-threaded (previous behaviour)
+    public SimpleGAOptimizer() {
+        this(System.nanoTime(), null);
+    }
+
+    public SimpleGAOptimizer(long seed) {
+        this(seed, null);
+    }
+
+    public SimpleGAOptimizer(long seed, ForkJoinPool pool) {
+        this.seed = seed;
+        this.pool = pool;
+    }
+
+    public void setProgressListener(ProgressListener listener) {
+        this.progress = listener;
+    }
+
+    /**
+     * Asks a running (or future) anytime solve to stop after its current generation;
+     * it returns the best solution so far with {@link StopReason#CANCELLED}.
+     * Safe to call from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
 
     public Result solve(
             List<Item> items,
@@ -23,134 +84,435 @@ public class SimpleGAOptimizer {
             int generations,
             int popSize
     ) {
+        ItemStore store = ItemStore.of(items);
+        return solve(store, DistanceOracle.of(store), numVehicles, capacity, dv, generations, popSize);
+    }
+
+    // Index-based variant: works on the store's columns and a prebuilt distance oracle
+    public Result solve(
+            ItemStore store,
+            DistanceOracle oracle,
+            int numVehicles,
+            int capacity,
+            double dv,
+            int generations,
+            int popSize
+    ) {
+        Evolution ev = start(store, oracle, numVehicles, capacity, dv, popSize);
+        for (int g = 0; g < generations; g++) {
+            ev.step();
+        }
+        Result res = ev.result();
+        res.generations = ev.generation();
+        res.stopReason = StopReason.GENERATIONS;
+        return res;
+    }
+
+    /**
+     * Anytime variant: evolves until maxGenerations is reached, the wall-clock budget
+     * runs out, or stallGenerations pass without a better solution, whichever comes
+     * first (0 switches a limit off; at least one must be on). Returns the best
+     * solution found, how many generations ran and why it stopped.
+     *
+     * The budget counts from this call, setup included. A generation is not started
+     * when the previous one suggests it would overrun, but at least one always runs.
+     * Runs cut short by the clock are not reproducible from the seed alone.
+     * A {@link ProgressListener}, if set, hears about every improvement.
+     */
+    public Result solve(
+            ItemStore store,
+            DistanceOracle oracle,
+            int numVehicles,
+            int capacity,
+            double dv,
+            int maxGenerations,
+            int popSize,
+            long timeBudgetMs,
+            int stallGenerations
+    ) {
+        if (maxGenerations <= 0 && timeBudgetMs <= 0 && stallGenerations <= 0) {
+            throw new IllegalArgumentException("GA needs a generation, time or stall limit");
+        }
+        long deadline = System.nanoTime() + timeBudgetMs * 1_000_000L;
 
-        // Initial population: random permutations of all items
-        List<List<Item>> population = new ArrayList<>();
-        for (int i = 0; i < popSize; i++) {
-            List<Item> copy = new ArrayList<>(items);
-            Collections.shuffle(copy, rand);
-            population.add(copy);
+        Evolution ev = start(store, oracle, numVehicles, capacity, dv, popSize);
+        StopReason reason;
+        while (true) {
+            long genStart = System.nanoTime();
+            ev.step();
+            long now = System.nanoTime();
+
+            if (progress != null && ev.generationsWithoutImprovement() == 0) {
+                progress.improved(ev);
+            }
+
+            if (cancelled) {
+                reason = StopReason.CANCELLED;
+                break;
+            }
+            if (maxGenerations > 0 && ev.generation() >= maxGenerations) {
+                reason = StopReason.GENERATIONS;
+                break;
+            }
+            if (stallGenerations > 0 && ev.generationsWithoutImprovement() >= stallGenerations) {
+                reason = StopReason.STALLED;
+                break;
+            }
+            // stop if one more generation like the last would cross the deadline
+            if (timeBudgetMs > 0 && now + (now - genStart) - deadline > 0) {
+                reason = StopReason.TIME_BUDGET;
+                break;
+            }
         }
 
-        List<Item> best = null;
-        double bestFit = Double.NEGATIVE_INFINITY;
+        Result res = ev.result();
+        res.generations = ev.generation();
+        res.stopReason = reason;
+        return res;
+    }
 
-        for (int g = 0; g < generations; g++) {
-            // breed / mutate
-            List<List<Item>> newPop = new ArrayList<>(popSize);
+    /** Starts a population that the caller advances one generation at a time. */
+    public Evolution start(ItemStore store,
+                           DistanceOracle oracle,
+                           int numVehicles,
+                           int capacity,
+                           double dv,
+                           int popSize) {
+        return new Evolution(store, oracle, numVehicles, capacity, dv, popSize);
+    }
+
+    /** Decodes an arbitrary chromosome (e.g. one received from another island). */
+    public Result decode(ItemStore store,
+                         DistanceOracle oracle,
+                         int[] chrom,
+                         int numVehicles,
+                         int capacity,
+                         double dv) {
+        RouteLocalSearch search = RouteLocalSearch.byStopCount(store, oracle);
+        return toResult(store, decodeBalanced(store, oracle, search, chrom, numVehicles, capacity, dv));
+    }
+
+    /**
+     * One GA population. {@link #step()} breeds and scores one generation;
+     * {@link #elites(int)} and {@link #immigrate(int[][])} let island runs
+     * exchange chromosomes between steps.
+     */
+    public final class Evolution {
+        private final ItemStore store;
+        private final DistanceOracle oracle;
+        private final RouteLocalSearch search;   // neighbour lists built once per run
+        private final FitnessCache cache;        // duplicates are common once the population converges
+        private final int numVehicles;
+        private final int capacity;
+        private final double dv;
+        private final int popSize;
+        private final int n;
+
+        private final SplittableRandom root = new SplittableRandom(seed);
+
+        // Chromosomes are permutations of item indices (positions in the store).
+        // Two population buffers are allocated once and swapped every generation,
+        // so breeding never allocates.
+        private int[][] population;
+        private int[][] offspring;
+        private final double[] fitness;   // fitness of `population`
+        private final SplittableRandom[] childRng;
+
+        private final int[] best;
+        private double bestFit = Double.NEGATIVE_INFINITY;
+        private int generation = 0;
+        private int improvedAt = 0;       // generation in which bestFit last went up
+
+        private Evolution(ItemStore store, DistanceOracle oracle,
+                          int numVehicles, int capacity, double dv, int popSize) {
+            this.store = store;
+            this.oracle = oracle;
+            this.search = RouteLocalSearch.byStopCount(store, oracle);
+            this.numVehicles = numVehicles;
+            this.capacity = capacity;
+            this.dv = dv;
+            this.popSize = popSize;
+            this.n = store.size();
+            long cacheSize = Math.min((long) popSize * CACHE_GENERATIONS, CACHE_MAX_GENES / Math.max(1, n));
+            this.cache = new FitnessCache((int) cacheSize);
+
+            population = new int[popSize][n];
+            offspring = new int[popSize][n];
+            fitness = new double[popSize];
+            childRng = new SplittableRandom[popSize];
+
+            // Initial population: random permutations of all items (not scored yet)
+            java.util.Arrays.fill(fitness, Double.NEGATIVE_INFINITY);
             for (int i = 0; i < popSize; i++) {
-                List<Item> p1 = population.get(rand.nextInt(popSize));
-                List<Item> p2 = population.get(rand.nextInt(popSize));
-                List<Item> child = crossover(p1, p2);
-                if (rand.nextDouble() < 0.2) {
-                    mutate(child);
-                }
-                newPop.add(child);
+                int[] chrom = population[i];
+                for (int k = 0; k < n; k++) chrom[k] = k;
+                shuffle(chrom, root);
             }
-            population = newPop;
 
-            for (List<Item> chrom : population) {
-                double fit = fitnessBalanced(chrom, numVehicles, capacity, dv);
-                if (fit > bestFit) {
-                    bestFit = fit;
-                    best = chrom;
+            best = new int[n];
+            for (int k = 0; k < n; k++) best[k] = k;
+        }
+
+        public void step() {
+            // one independent stream per child, handed out in index order
+            for (int i = 0; i < popSize; i++) {
+                childRng[i] = root.split();
+            }
+
+            // breed / mutate into the spare buffer and score each child
+            final int[][] parents = population;
+            final int[][] children = offspring;
+            forEachChild(popSize, i -> {
+                SplittableRandom rnd = childRng[i];
+                int[] p1 = parents[rnd.nextInt(popSize)];
+                int[] p2 = parents[rnd.nextInt(popSize)];
+                int[] child = children[i];
+                crossover(p1, p2, child, rnd);
+                if (rnd.nextDouble() < 0.2) {
+                    mutate(child, rnd);
                 }
+                fitness[i] = evaluate(child);
+            });
+            population = children;
+            offspring = parents;
+            generation++;
+
+            // sequential scan in index order, so ties resolve the same way every run
+            for (int i = 0; i < popSize; i++) {
+                offer(population[i], fitness[i]);
+            }
+        }
+
+        private double evaluate(int[] chrom) {
+            return cache.fitness(chrom, c -> fitnessBalanced(store, oracle, search, c, numVehicles, capacity, dv));
+        }
+
+        private void offer(int[] chrom, double fit) {
+            if (fit > bestFit) {
+                bestFit = fit;
+                improvedAt = generation;
+                // buffers get overwritten next generation, so keep a copy
+                System.arraycopy(chrom, 0, best, 0, n);
+            }
+        }
+
+        public int generation() { return generation; }
+
+        public double bestFitness() { return bestFit; }
+
+        public int generationsWithoutImprovement() { return generation - improvedAt; }
+
+        public int[] bestChromosome() { return best.clone(); }
+
+        public FitnessCache fitnessCache() { return cache; }
+
+        /** Best-so-far plus the fittest members of the current population, as copies. */
+        public int[][] elites(int k) {
+            k = Math.max(0, Math.min(k, popSize + 1));
+            if (k == 0) return new int[0][];
+            Integer[] order = new Integer[popSize];
+            for (int i = 0; i < popSize; i++) order[i] = i;
+            java.util.Arrays.sort(order, (a, b) -> Double.compare(fitness[b], fitness[a]));
+
+            int[][] out = new int[k][];
+            out[0] = best.clone();
+            for (int j = 1; j < k; j++) {
+                out[j] = population[order[j - 1]].clone();
             }
+            return out;
         }
 
-        return decodeBalanced(best, numVehicles, capacity, dv);
+        /** Replaces the weakest members of the current population with migrants. */
+        public void immigrate(int[][] migrants) {
+            if (migrants == null || migrants.length == 0 || popSize == 0) return;
+            Integer[] order = new Integer[popSize];
+            for (int i = 0; i < popSize; i++) order[i] = i;
+            java.util.Arrays.sort(order, (a, b) -> Double.compare(fitness[a], fitness[b]));
+
+            int slots = Math.min(migrants.length, popSize);
+            for (int j = 0; j < slots; j++) {
+                int[] m = migrants[j];
+                if (m == null || m.length != n) continue; // not a chromosome of this instance
+                int slot = order[j];
+                System.arraycopy(m, 0, population[slot], 0, n);
+                fitness[slot] = evaluate(population[slot]);
+                offer(population[slot], fitness[slot]);
+            }
+        }
+
+        public Result result() {
+            Result res = toResult(store, decodeBalanced(store, oracle, search, best, numVehicles, capacity, dv));
+            res.cacheHits = cache.hits();
+            res.cacheMisses = cache.misses();
+            return res;
+        }
+    }
+
+    // Runs body(0..count-1) on the pool if there is one, otherwise inline
+    private void forEachChild(int count, java.util.function.IntConsumer body) {
+        if (pool == null || count < 2) {
+            for (int i = 0; i < count; i++) body.accept(i);
+        } else {
+            pool.submit(() -> IntStream.range(0, count).parallel().forEach(body)).join();
+        }
     }
 
     // ----- GA operators -----
-    private List<Item> crossover(List<Item> p1, List<Item> p2) {
-        int n = p1.size();
-        if (n == 0) return new ArrayList<>();
-        int a = rand.nextInt(n), b = rand.nextInt(n);
+
+    // Generation-stamped membership marks for OX: gene g is in the child when
+    // mark[g] == gen, so clearing between children is a single increment.
+    // One instance per worker thread.
+    private static final class OxMarks {
+        int[] mark = new int[0];
+        int gen;
+    }
+
+    private final ThreadLocal<OxMarks> oxMarks = ThreadLocal.withInitial(OxMarks::new);
+
+    // Order crossover (OX), linear in n: copy p1[a..b], then fill the rest in p2 order
+    private void crossover(int[] p1, int[] p2, int[] child, SplittableRandom rnd) {
+        int n = p1.length;
+        if (n == 0) return;
+        int a = rnd.nextInt(n), b = rnd.nextInt(n);
         if (a > b) {
             int t = a;
             a = b;
             b = t;
         }
 
-        List<Item> child = new ArrayList<>(Collections.nCopies(n, (Item) null));
+        OxMarks m = oxMarks.get();
+        if (m.mark.length != n) {
+            m.mark = new int[n];
+            m.gen = 0;
+        }
+        if (++m.gen == 0) {  // wrapped around: old marks could alias
+            java.util.Arrays.fill(m.mark, 0);
+            m.gen = 1;
+        }
+        int[] mark = m.mark;
+        int gen = m.gen;
+
         for (int i = a; i <= b; i++) {
-            child.set(i, p1.get(i));
+            child[i] = p1[i];
+            mark[p1[i]] = gen;
         }
 
         int idx = (b + 1) % n;
-        for (Item it : p2) {
-            if (!child.contains(it)) {
-                child.set(idx, it);
+        for (int k = 0; k < n; k++) {
+            int gene = p2[k];
+            if (mark[gene] != gen) {
+                child[idx] = gene;
                 idx = (idx + 1) % n;
             }
         }
-        return child;
     }
 
-    private void mutate(List<Item> chrom) {
-        if (chrom.size() < 2) return;
-        int i = rand.nextInt(chrom.size());
-        int j = rand.nextInt(chrom.size());
-        Collections.swap(chrom, i, j);
+    // Swap mutation
+    private void mutate(int[] chrom, SplittableRandom rnd) {
+        if (chrom.length < 2) return;
+        int i = rnd.nextInt(chrom.length);
+        int j = rnd.nextInt(chrom.length);
+        int t = chrom[i];
+        chrom[i] = chrom[j];
+        chrom[j] = t;
+    }
+
+    // Fisher-Yates shuffle
+    private static void shuffle(int[] chrom, SplittableRandom rnd) {
+        for (int i = chrom.length; i > 1; i--) {
+            int j = rnd.nextInt(i);
+            int t = chrom[i - 1];
+            chrom[i - 1] = chrom[j];
+            chrom[j] = t;
+        }
     }
 
     // ----- Fitness using the balanced decoder -----
-    private double fitnessBalanced(List<Item> chrom,
-                                   int numVehicles,
-                                   int capacity,
-                                   double dv) {
-        Result r = decodeBalanced(chrom, numVehicles, capacity, dv);
+    private static double fitnessBalanced(ItemStore store,
+                                          DistanceOracle oracle,
+                                          RouteLocalSearch search,
+                                          int[] chrom,
+                                          int numVehicles,
+                                          int capacity,
+                                          double dv) {
+        Decoded r = decodeBalanced(store, oracle, search, chrom, numVehicles, capacity, dv);
         // Reward delivered items heavily; penalize distance
         return r.itemsDelivered * 1000.0 - r.totalDistance;
     }
 
+    // Decoder output in index form; only the final best is turned into Items
+    private static class Decoded {
+        int[][] routes;
+        int[] lengths;
+        double totalDistance;
+        int itemsDelivered;
+    }
+
+    private static Result toResult(ItemStore store, Decoded d) {
+        Result res = new Result();
+        for (int v = 0; v < d.routes.length; v++) {
+            res.routes.add(store.toItems(d.routes[v], d.lengths[v]));
+            res.routeIndices.add(java.util.Arrays.copyOf(d.routes[v], d.lengths[v]));
+        }
+        res.totalDistance = d.totalDistance;
+        res.itemsDelivered = d.itemsDelivered;
+        return res;
+    }
+
     // ===== Balanced decoder with time windows =====
     // We assign each item from the chromosome to the "best" vehicle that:
     // - still has capacity
     // - can reach within the time window
     // - does not break the dv (max distance) limit
-    private Result decodeBalanced(List<Item> chrom,
-                                  int numVehicles,
-                                  int capacity,
-                                  double dv) {
-
-        Result res = new Result();
+    private static Decoded decodeBalanced(ItemStore store,
+                                          DistanceOracle oracle,
+                                          RouteLocalSearch search,
+                                          int[] chrom,
+                                          int numVehicles,
+                                          int capacity,
+                                          double dv) {
+
+        Decoded res = new Decoded();
+        res.routes = new int[numVehicles][];
+        res.lengths = new int[numVehicles];
+        int maxStops = Math.max(0, Math.min(capacity, chrom.length));
         for (int v = 0; v < numVehicles; v++) {
-            res.routes.add(new ArrayList<>());
+            res.routes[v] = new int[maxStops];
         }
 
-        double[] curX = new double[numVehicles];
-        double[] curY = new double[numVehicles];
+        int[] curPos = new int[numVehicles];          // last item index per vehicle (DEPOT at start)
         double[] curDist = new double[numVehicles];   // distance traveled so far (not incl. final return yet)
         double[] curTime = new double[numVehicles];   // time so far
         int[] curCount = new int[numVehicles];
 
         for (int i = 0; i < numVehicles; i++) {
-            curX[i] = 0.0;
-            curY[i] = 0.0;
+            curPos[i] = DistanceOracle.DEPOT;
             curDist[i] = 0.0;
             curTime[i] = 0.0;
             curCount[i] = 0;
         }
 
-        for (Item it : chrom) {
+        for (int idx : chrom) {
             int bestV = -1;
             double bestScore = Double.POSITIVE_INFINITY; // lower is better
 
+            // distance to go back to depot after visiting this item (same for every vehicle)
+            double backHome = oracle.depot(idx);
+
             for (int v = 0; v < numVehicles; v++) {
                 if (curCount[v] >= capacity) continue; // capacity full
 
                 // distance from vehicle v current pos -> this item
-                double travelLeg = hypot(it.getX() - curX[v], it.getY() - curY[v]);
+                double travelLeg = oracle.dist(curPos[v], idx);
 
                 // arrival time if we go now
                 double arrival = curTime[v] + travelLeg;
 
                 // we can wait if early
-                double serviceStart = Math.max(arrival, it.getStartTime());
+                double serviceStart = Math.max(arrival, store.startTime(idx));
 
                 // if still past endTime, can't serve on this vehicle
-                if (serviceStart > it.getEndTime()) {
+                if (serviceStart > store.endTime(idx)) {
                     continue;
                 }
 
@@ -158,7 +520,6 @@ public class SimpleGAOptimizer {
                 double newDistSoFar = curDist[v] + travelLeg;
 
                 // plus distance to go back to depot after visiting this item
-                double backHome = hypot(it.getX(), it.getY());
                 double projectedTotalDistForThisVehicle = newDistSoFar + backHome;
 
                 // enforce dv limit (per-vehicle max distance)
@@ -178,89 +539,29 @@ public class SimpleGAOptimizer {
 
             if (bestV >= 0) {
                 // Assign item to that vehicle
-                double travelLeg = hypot(it.getX() - curX[bestV], it.getY() - curY[bestV]);
+                double travelLeg = oracle.dist(curPos[bestV], idx);
                 double arrival = curTime[bestV] + travelLeg;
-                double serviceStart = Math.max(arrival, it.getStartTime());
+                double serviceStart = Math.max(arrival, store.startTime(idx));
 
                 // update route state
-                res.routes.get(bestV).add(it);
+                res.routes[bestV][res.lengths[bestV]++] = idx;
                 curDist[bestV] += travelLeg;
-                curX[bestV] = it.getX();
-                curY[bestV] = it.getY();
+                curPos[bestV] = idx;
                 curTime[bestV] = serviceStart; // assume instant service
                 curCount[bestV]++;
             }
         }
 
-        // Local improvement step (2-opt per route) to shorten path distance
-        for (List<Item> route : res.routes) {
-            twoOpt(route);
-        }
+        // Local improvement: 2-opt / Or-opt inside routes, relocate / exchange between
+        // them, keeping capacity, dv and time windows satisfied
+        res.totalDistance = search.improve(res.routes, res.lengths, capacity, dv);
 
-        // Compute totals for all routes:
-        res.totalDistance = 0.0;
         int delivered = 0;
-
         for (int v = 0; v < numVehicles; v++) {
-            List<Item> route = res.routes.get(v);
-            if (route.isEmpty()) continue;
-
-            double x = 0.0;
-            double y = 0.0;
-            double d = 0.0;
-
-            for (Item it : route) {
-                d += hypot(it.getX() - x, it.getY() - y);
-                x = it.getX();
-                y = it.getY();
-            }
-
-            // return to depot
-            d += hypot(x, y);
-
-            res.totalDistance += d;
-            delivered += route.size();
+            delivered += res.lengths[v];
         }
 
         res.itemsDelivered = delivered;
         return res;
     }
-
-    // 2-opt to reduce distance for each vehicle route
-    private static void twoOpt(List<Item> route) {
-        int n = route.size();
-        if (n < 4) return;
-        boolean improved = true;
-        while (improved) {
-            improved = false;
-            for (int i = 0; i < n - 3; i++) {
-                for (int k = i + 2; k < n - 1; k++) {
-                    double a1 = segLen(route, i, i + 1);
-                    double a2 = segLen(route, k, k + 1);
-                    double b1 = segLen(route, i, k);
-                    double b2 = segLen(route, i + 1, k + 1);
-                    if (b1 + b2 + 1e-9 < a1 + a2) {
-                        // reverse (i+1..k)
-                        for (int l = i + 1, r = k; l < r; l++, r--) {
-                            Collections.swap(route, l, r);
-                        }
-                        improved = true;
-                    }
-                }
-            }
-        }
-    }
-
-    private static double segLen(List<Item> r, int a, int b) {
-        double xa = (a >= 0 && a < r.size()) ? r.get(a).getX() : 0.0;
-        double ya = (a >= 0 && a < r.size()) ? r.get(a).getY() : 0.0;
-        double xb = (b >= 0 && b < r.size()) ? r.get(b).getX() : 0.0;
-        double yb = (b >= 0 && b < r.size()) ? r.get(b).getY() : 0.0;
-        return hypot(xb - xa, yb - ya);
-    }
-
-    // Utilities
-    private static double hypot(double dx, double dy) {
-        return Math.hypot(dx, dy);
-    }
 }
@@ -0,0 +1,232 @@
+package vrp;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Finished solutions by problem fingerprint, so a repeated optimize-request
+ * (double click, retry, the same schedule run again) is answered without solving.
+ *
+ * The fingerprint is a SHA-256 over everything that decides the result: the items
+ * in request order, technique, fleet (count, capacity, dv), seed and search budget.
+ * Entries are kept in an access-ordered LinkedHashMap bounded to maxEntries (LRU).
+ *
+ * With a file, every new entry is also appended to it as one JSON line, and the
+ * file is read back on start, so the cache survives platform restarts. Later lines
+ * win; a torn last line (crash mid-write) is skipped. Whenever the file holds more
+ * than twice maxEntries lines, on start or after an append, it is rewritten with
+ * the live entries only.
+ *
+ * All methods are synchronized: the MRA looks up from its worker threads and
+ * stores from both the workers and its own thread.
+ */
+public final class SolutionCache {
+
+    /** A cached result: routes as item indices, keyed DA1..DAk, plus its totals. */
+    public static final class Entry {
+        public String key;
+        public Map<String, int[]> routes;
+        public int delivered;
+        public double totalDistance;
+    }
+
+    private final int maxEntries;
+    private final Path file;
+    private final Gson gson = new Gson();
+
+    private final LinkedHashMap<String, Entry> entries;
+    private BufferedWriter out;
+    private int fileLines;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /** maxEntries = 0 disables caching; file may be null (memory only). */
+    public SolutionCache(int maxEntries, Path file) {
+        this.maxEntries = Math.max(0, maxEntries);
+        this.file = (this.maxEntries > 0) ? file : null;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= SolutionCache.this.maxEntries) return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    // --- Fingerprint ---
+
+    /** Hex SHA-256 of the items and every parameter that changes the solution. */
+    public static String fingerprint(ItemStore store, String technique, int numDAs, int cap, double dv,
+                                     String seed, String budget) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);   // every JRE ships SHA-256
+        }
+        // numeric columns in one buffer, ids after them: two digest calls per chunk, not six per item
+        ByteBuffer buf = ByteBuffer.allocate(4096 * 32);
+        for (int i = 0; i < store.size(); i++) {
+            if (buf.remaining() < 32) {
+                md.update(buf.array(), 0, buf.position());
+                buf.clear();
+            }
+            buf.putDouble(store.x(i)).putDouble(store.y(i))
+                    .putInt(store.demand(i)).putInt(store.startTime(i)).putInt(store.endTime(i)).putInt(0);
+        }
+        md.update(buf.array(), 0, buf.position());
+        StringBuilder ids = new StringBuilder(store.size() * 8);
+        for (int i = 0; i < store.size(); i++) ids.append(store.id(i)).append('\0');
+        md.update(ids.toString().getBytes(StandardCharsets.UTF_8));
+
+        String params = "|" + store.size() + "|" + technique.toUpperCase() + "|" + numDAs + "|" + cap +
+                "|" + Double.doubleToLongBits(dv) + "|" + seed + "|" + budget;
+        md.update(params.getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder sb = new StringBuilder(64);
+        for (byte b : md.digest()) sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+
+    // --- Lookup / store ---
+
+    public synchronized Entry get(String key) {
+        Entry e = (maxEntries == 0) ? null : entries.get(key);
+        if (e == null) misses++; else hits++;
+        return e;
+    }
+
+    public synchronized void put(String key, Map<String, int[]> routes, int delivered, double totalDistance) {
+        if (maxEntries == 0 || entries.containsKey(key)) return;
+        Entry e = new Entry();
+        e.key = key;
+        e.routes = new LinkedHashMap<>();
+        for (Map.Entry<String, int[]> r : routes.entrySet()) e.routes.put(r.getKey(), r.getValue().clone());
+        e.delivered = delivered;
+        e.totalDistance = totalDistance;
+        entries.put(key, e);
+        append(e);
+    }
+
+    // --- Statistics ---
+
+    public synchronized long hits() { return hits; }
+    public synchronized long misses() { return misses; }
+    public synchronized long evictions() { return evictions; }
+    public synchronized int size() { return entries.size(); }
+    public int capacity() { return maxEntries; }
+
+    public synchronized String stats() {
+        long total = hits + misses;
+        return String.format("hits=%d misses=%d (%.0f%%) entries=%d/%d evicted=%d%s",
+                hits, misses, (total == 0) ? 0.0 : 100.0 * hits / total,
+                entries.size(), maxEntries, evictions, (file == null) ? "" : " file=" + file);
+    }
+
+    // --- Disk store ---
+
+    /**
+     * Reads the file back (if any) and opens it for appending. Returns the number
+     * of entries loaded; an unreadable file only disables persistence.
+     */
+    public synchronized int open() throws IOException {
+        if (file == null) return 0;
+        if (Files.exists(file)) {
+            try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    fileLines++;
+                    try {
+                        Entry e = gson.fromJson(line, Entry.class);
+                        if (e != null && e.key != null && e.routes != null) entries.put(e.key, e);
+                    } catch (JsonParseException ignored) {
+                        // torn or foreign line: skip it
+                    }
+                }
+            }
+            evictions = 0;   // trimming the file to maxEntries is not an eviction
+            if (fileLines > 2 * maxEntries) {
+                compact();
+            } else if (!endsWithNewline()) {
+                // start our first line after the torn one, not inside it
+                Files.write(file, System.lineSeparator().getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+            }
+        } else if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return entries.size();
+    }
+
+    public synchronized void close() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException ignored) {
+            // nothing left to save
+        }
+        out = null;
+    }
+
+    private void append(Entry e) {
+        if (out == null) return;
+        try {
+            out.write(gson.toJson(e));
+            out.newLine();
+            out.flush();
+            fileLines++;
+            if (fileLines > 2 * maxEntries) {
+                // evicted entries pile up in the file: rewrite it, then append to the new one
+                out.close();
+                out = null;
+                compact();
+                out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+        } catch (IOException ex) {
+            // keep serving from memory; persistence is best effort
+            close();
+        }
+    }
+
+    private boolean endsWithNewline() throws IOException {
+        try (SeekableByteChannel ch = Files.newByteChannel(file)) {
+            if (ch.size() == 0) return true;
+            ByteBuffer last = ByteBuffer.allocate(1);
+            ch.position(ch.size() - 1).read(last);
+            return last.get(0) == '\n';
+        }
+    }
+
+    // rewrite the file with the live entries, oldest first, then swap it in
+    private void compact() throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Entry e : entries.values()) {
+                w.write(gson.toJson(e));
+                w.newLine();
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        fileLines = entries.size();
+    }
+}
@@ -0,0 +1,190 @@
+package vrp;
+
+/**
+ * Uniform grid over the items of an {@link ItemStore}, for nearest-neighbour
+ * searches that skip items which have already been removed (e.g. delivered).
+ *
+ * Each cell owns a fixed slice of one shared int array; live items are kept
+ * at the front of their slice, so removal and re-insertion are O(1) swaps.
+ * Queries walk square rings of cells outwards from the query point and stop
+ * as soon as no unvisited cell can hold anything closer than the best hit.
+ * Distances come from the {@link DistanceOracle}, so they are exactly the
+ * values the optimizers compare.
+ */
+public final class SpatialGrid {
+
+    /** Decides whether item idx, at distance dist from the query point, is acceptable. */
+    public interface Filter {
+        boolean accept(int idx, double dist);
+    }
+
+    // aim for a couple of items per cell
+    private static final double ITEMS_PER_CELL = 2.0;
+    private static final int MAX_SIDE = 2048;
+
+    private final ItemStore store;
+    private final DistanceOracle oracle;
+
+    private final double minX;
+    private final double minY;
+    private final double cellSize;
+    private final int cols;
+    private final int rows;
+
+    private final int[] cellStart;   // slice start per cell (size cols*rows + 1)
+    private final int[] cellLive;    // live items per cell
+    private final int[] slots;       // item indices, grouped by cell
+    private final int[] slotOf;      // item index -> its position in `slots`
+    private final int[] cellOf;      // item index -> its cell
+    private int live;
+
+    public SpatialGrid(ItemStore store, DistanceOracle oracle) {
+        this.store = store;
+        this.oracle = oracle;
+        int n = store.size();
+
+        // bounds include the depot so queries from (0,0) start inside the grid
+        double x0 = 0, y0 = 0, x1 = 0, y1 = 0;
+        for (int i = 0; i < n; i++) {
+            x0 = Math.min(x0, store.x(i));
+            y0 = Math.min(y0, store.y(i));
+            x1 = Math.max(x1, store.x(i));
+            y1 = Math.max(y1, store.y(i));
+        }
+        double w = Math.max(x1 - x0, 1e-9);
+        double h = Math.max(y1 - y0, 1e-9);
+        double cs = Math.sqrt(w * h * ITEMS_PER_CELL / Math.max(1, n));
+        // at most MAX_SIDE cells per side (very elongated or huge instances)
+        cs = Math.max(cs, Math.max(w, h) / MAX_SIDE);
+        if (!(cs > 0)) cs = Math.max(w, h);
+
+        this.minX = x0;
+        this.minY = y0;
+        this.cellSize = cs;
+        this.cols = (int) (w / cs) + 1;
+        this.rows = (int) (h / cs) + 1;
+
+        int cells = cols * rows;
+        cellStart = new int[cells + 1];
+        cellLive = new int[cells];
+        slots = new int[n];
+        slotOf = new int[n];
+        cellOf = new int[n];
+
+        // counting sort of items into cells
+        for (int i = 0; i < n; i++) {
+            int c = cellIndex(col(store.x(i)), row(store.y(i)));
+            cellOf[i] = c;
+            cellStart[c + 1]++;
+        }
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        for (int i = 0; i < n; i++) {
+            int c = cellOf[i];
+            int pos = cellStart[c] + cellLive[c]++;
+            slots[pos] = i;
+            slotOf[i] = pos;
+        }
+        live = n;
+    }
+
+    // --- Mutation ---
+
+    public int size() { return live; }
+
+    /** Removes item idx from future queries (no-op if already removed). */
+    public void remove(int idx) {
+        int c = cellOf[idx];
+        int pos = slotOf[idx];
+        int lastPos = cellStart[c] + cellLive[c] - 1;
+        if (pos > lastPos) return; // not live
+
+        int other = slots[lastPos];
+        slots[pos] = other;
+        slotOf[other] = pos;
+        slots[lastPos] = idx;
+        slotOf[idx] = lastPos;
+        cellLive[c]--;
+        live--;
+    }
+
+    /** Puts a previously removed item back. */
+    public void add(int idx) {
+        int c = cellOf[idx];
+        int pos = slotOf[idx];
+        int firstDead = cellStart[c] + cellLive[c];
+        if (pos < firstDead) return; // already live
+
+        int other = slots[firstDead];
+        slots[pos] = other;
+        slotOf[other] = pos;
+        slots[firstDead] = idx;
+        slotOf[idx] = firstDead;
+        cellLive[c]++;
+        live++;
+    }
+
+    // --- Query ---
+
+    /**
+     * Nearest live item to node {@code from} (an item index or {@link DistanceOracle#DEPOT})
+     * that passes the filter and lies within maxDist. Ties go to the lower item index.
+     * Returns -1 when there is none.
+     */
+    public int nearest(int from, double maxDist, Filter filter) {
+        if (live == 0) return -1;
+
+        double qx = (from == DistanceOracle.DEPOT) ? 0.0 : store.x(from);
+        double qy = (from == DistanceOracle.DEPOT) ? 0.0 : store.y(from);
+        int qc = col(qx);
+        int qr = row(qy);
+
+        int best = -1;
+        double bestDist = Double.POSITIVE_INFINITY;
+        int maxRing = Math.max(Math.max(qc, cols - 1 - qc), Math.max(qr, rows - 1 - qr));
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // cells of this ring are at least (ring - 1) cells away from the query point
+            double ringMin = (ring - 1) * cellSize;
+            if (ringMin > maxDist) break;
+            if (best >= 0 && bestDist < ringMin) break;
+
+            int c0 = qc - ring, c1 = qc + ring;
+            int r0 = qr - ring, r1 = qr + ring;
+            for (int r = Math.max(0, r0); r <= Math.min(rows - 1, r1); r++) {
+                boolean edgeRow = (r == r0 || r == r1);
+                int step = edgeRow ? 1 : (c1 - c0);
+                for (int c = c0; c <= c1; c += Math.max(1, step)) {
+                    if (c < 0 || c >= cols) continue;
+                    int cell = cellIndex(c, r);
+                    int end = cellStart[cell] + cellLive[cell];
+                    for (int p = cellStart[cell]; p < end; p++) {
+                        int idx = slots[p];
+                        double d = oracle.dist(from, idx);
+                        if (d > maxDist) continue;
+                        if (d > bestDist || (d == bestDist && idx > best)) continue;
+                        if (!filter.accept(idx, d)) continue;
+                        best = idx;
+                        bestDist = d;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private int col(double x) {
+        int c = (int) ((x - minX) / cellSize);
+        return Math.max(0, Math.min(cols - 1, c));
+    }
+
+    private int row(double y) {
+        int r = (int) ((y - minY) / cellSize);
+        return Math.max(0, Math.min(rows - 1, r));
+    }
+
+    private int cellIndex(int c, int r) {
+        return r * cols + c;
+    }
+}
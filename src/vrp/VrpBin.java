@@ -0,0 +1,244 @@
+package vrp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary columnar item file (.vrpbin), loaded by memory-mapping instead of parsing.
+ *
+ * Layout (little-endian, every section 8-byte aligned):
+ * <pre>
+ *   header   magic "VRPB", int version, int count, int reserved,
+ *            long offsets of: x, y, demand, start, end, idOffsets, idBytes; long idBytes length
+ *   x        double[count]
+ *   y        double[count]
+ *   demand   int[count]
+ *   start    int[count]
+ *   end      int[count]
+ *   idOffs   int[count + 1]   byte offset of each id inside idBytes
+ *   idBytes  UTF-8 ids, concatenated
+ * </pre>
+ * Numeric columns are bulk-copied out of the mapping into the {@link ItemStore}
+ * arrays; ids stay in the mapping and are decoded only when asked for.
+ *
+ * Convert a CSV items file with: {@code java vrp.VrpBin data/items.txt data/items.vrpbin}
+ */
+public final class VrpBin {
+
+    public static final String EXTENSION = ".vrpbin";
+
+    private static final int MAGIC = 0x42505256;   // "VRPB" read little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16 + 8 * 8;
+
+    private VrpBin() {}
+
+    public static boolean isVrpBin(String path) {
+        return path != null && path.toLowerCase().endsWith(EXTENSION);
+    }
+
+    /* ================== Reading ================== */
+
+    public static ItemStore load(String path) throws IOException {
+        try (FileChannel ch = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < HEADER_BYTES) {
+                throw new IllegalArgumentException(path + ": not a .vrpbin file (too short)");
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(path + ": .vrpbin files larger than 2 GB are not supported");
+            }
+
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (map.getInt(0) != MAGIC) {
+                throw new IllegalArgumentException(path + ": not a .vrpbin file (bad magic)");
+            }
+            int version = map.getInt(4);
+            if (version != VERSION) {
+                throw new IllegalArgumentException(path + ": unsupported .vrpbin version " + version);
+            }
+            int n = map.getInt(8);
+            long xOff = map.getLong(16);
+            long yOff = map.getLong(24);
+            long demandOff = map.getLong(32);
+            long startOff = map.getLong(40);
+            long endOff = map.getLong(48);
+            long idOffsOff = map.getLong(56);
+            long idBytesOff = map.getLong(64);
+            long idBytesLen = map.getLong(72);
+
+            if (n < 0
+                    || !fits(xOff, 8L * n, size) || !fits(yOff, 8L * n, size)
+                    || !fits(demandOff, 4L * n, size) || !fits(startOff, 4L * n, size)
+                    || !fits(endOff, 4L * n, size) || !fits(idOffsOff, 4L * (n + 1), size)
+                    || !fits(idBytesOff, idBytesLen, size)) {
+                throw new IllegalArgumentException(path + ": corrupt .vrpbin header");
+            }
+
+            double[] x = new double[n];
+            double[] y = new double[n];
+            int[] demand = new int[n];
+            int[] start = new int[n];
+            int[] end = new int[n];
+            slice(map, xOff, 8L * n).asDoubleBuffer().get(x);
+            slice(map, yOff, 8L * n).asDoubleBuffer().get(y);
+            slice(map, demandOff, 4L * n).asIntBuffer().get(demand);
+            slice(map, startOff, 4L * n).asIntBuffer().get(start);
+            slice(map, endOff, 4L * n).asIntBuffer().get(end);
+
+            ByteBuffer idOffs = slice(map, idOffsOff, 4L * (n + 1));
+            ByteBuffer idBytes = slice(map, idBytesOff, idBytesLen);
+
+            return new ItemStore(i -> {
+                int a = idOffs.getInt(4 * i);
+                int b = idOffs.getInt(4 * (i + 1));
+                byte[] buf = new byte[b - a];
+                idBytes.get(a, buf);
+                return new String(buf, StandardCharsets.UTF_8);
+            }, x, y, demand, start, end, null);
+        }
+    }
+
+    private static boolean fits(long off, long len, long size) {
+        return off >= HEADER_BYTES && len >= 0 && off + len <= size;
+    }
+
+    private static ByteBuffer slice(MappedByteBuffer map, long off, long len) {
+        return map.slice((int) off, (int) len).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /* ================== Writing ================== */
+
+    public static void write(ItemStore store, String path) throws IOException {
+        int n = store.size();
+
+        byte[][] idUtf8 = new byte[n][];
+        long idBytesLen = 0;
+        for (int i = 0; i < n; i++) {
+            idUtf8[i] = store.id(i).getBytes(StandardCharsets.UTF_8);
+            idBytesLen += idUtf8[i].length;
+        }
+        if (idBytesLen > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("ids too large for .vrpbin (" + idBytesLen + " bytes)");
+        }
+
+        long xOff = HEADER_BYTES;
+        long yOff = align(xOff + 8L * n);
+        long demandOff = align(yOff + 8L * n);
+        long startOff = align(demandOff + 4L * n);
+        long endOff = align(startOff + 4L * n);
+        long idOffsOff = align(endOff + 4L * n);
+        long idBytesOff = align(idOffsOff + 4L * (n + 1));
+
+        try (FileChannel ch = FileChannel.open(Path.of(path),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer w = new Writer(ch);
+
+            w.putInt(MAGIC);
+            w.putInt(VERSION);
+            w.putInt(n);
+            w.putInt(0);
+            w.putLong(xOff);
+            w.putLong(yOff);
+            w.putLong(demandOff);
+            w.putLong(startOff);
+            w.putLong(endOff);
+            w.putLong(idOffsOff);
+            w.putLong(idBytesOff);
+            w.putLong(idBytesLen);
+
+            w.padTo(xOff);
+            for (int i = 0; i < n; i++) w.putDouble(store.x(i));
+            w.padTo(yOff);
+            for (int i = 0; i < n; i++) w.putDouble(store.y(i));
+            w.padTo(demandOff);
+            for (int i = 0; i < n; i++) w.putInt(store.demand(i));
+            w.padTo(startOff);
+            for (int i = 0; i < n; i++) w.putInt(store.startTime(i));
+            w.padTo(endOff);
+            for (int i = 0; i < n; i++) w.putInt(store.endTime(i));
+            w.padTo(idOffsOff);
+            int at = 0;
+            for (int i = 0; i < n; i++) {
+                w.putInt(at);
+                at += idUtf8[i].length;
+            }
+            w.putInt(at);
+            w.padTo(idBytesOff);
+            for (int i = 0; i < n; i++) w.putBytes(idUtf8[i]);
+            w.flush();
+        }
+    }
+
+    /** CSV items file (any format {@link ItemsParser#parseStore} reads) -> .vrpbin */
+    public static void convert(String csvPath, String binPath) throws IOException {
+        write(ItemsParser.parseStore(csvPath), binPath);
+    }
+
+    private static long align(long off) {
+        return (off + 7) & ~7L;
+    }
+
+    // Little-endian sequential writer over a reusable buffer
+    private static final class Writer {
+        private final FileChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private long written;
+
+        Writer(FileChannel ch) { this.ch = ch; }
+
+        void putInt(int v) throws IOException { ensure(4); buf.putInt(v); }
+        void putLong(long v) throws IOException { ensure(8); buf.putLong(v); }
+        void putDouble(double v) throws IOException { ensure(8); buf.putDouble(v); }
+
+        void putBytes(byte[] b) throws IOException {
+            int off = 0;
+            while (off < b.length) {
+                ensure(1);
+                int len = Math.min(buf.remaining(), b.length - off);
+                buf.put(b, off, len);
+                off += len;
+            }
+        }
+
+        void padTo(long offset) throws IOException {
+            while (written + buf.position() < offset) {
+                ensure(1);
+                buf.put((byte) 0);
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buf.remaining() < bytes) flush();
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) {
+                written += ch.write(buf);
+            }
+            buf.clear();
+        }
+    }
+
+    /* ================== Converter entry point ================== */
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("usage: java vrp.VrpBin <items.csv> <out.vrpbin>");
+            System.exit(2);
+        }
+        long t0 = System.currentTimeMillis();
+        convert(args[0], args[1]);
+        System.out.println("Wrote " + args[1] + " in " + (System.currentTimeMillis() - t0) + "ms");
+    }
+}
@@ -0,0 +1,365 @@
+package vrp;
+
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs every technique over a set of Solomon / Gehring–Homberger instances and
+ * records runtime, distance, delivered count and the gap to the best known
+ * distance, one row per instance x technique x seed:
+ *
+ *   java -cp intelligent-systems.jar:gson.jar vrp.VrptwBenchmark --seeds 3 solomon/ > results.csv
+ *
+ * Runs are reproducible: fixed seeds, and the GA stops on its generation cap
+ * unless a time budget is asked for. Each instance is solved with its own
+ * capacity and the best known fleet size when one is listed, else the file's.
+ * The depot's due date is a time limit, but the solvers only take a route
+ * length limit, so it is passed as that; the replay below checks it as a time.
+ *
+ * The solvers have no service time (Item has none), so they plan as if service
+ * were instant. Every route is therefore replayed under the Solomon rules
+ * (withServiceTimes): that is the feasible column, and the gap to the best known
+ * distance is only given for runs feasible under those rules that deliver every
+ * customer. feasibleNoService is the solvers' own check. Routes planned without
+ * service time often break later time windows, and GA enforces capacity as a
+ * number of stops rather than demand, so many rows are infeasible and get no gap.
+ *
+ * Best known values come from --best-known FILE, or best-known.csv next to the
+ * instances: lines "name,vehicles,distance" (commas or spaces, # comments).
+ * Solving is done by {@link BatchRunner#solve}, so neither AWT nor JADE is loaded.
+ */
+public final class VrptwBenchmark {
+
+    private static final String USAGE = String.join("\n",
+            "usage: java vrp.VrptwBenchmark [options] <instance file or directory>...",
+            "  --techniques LIST     comma separated (default GREEDY,GA,CLUSTER,CNET)",
+            "  --seed S              first seed (default 1)",
+            "  --seeds N             seeds S..S+N-1 per instance and technique (default 1)",
+            "  --best-known FILE     name,vehicles,distance per line (default <dir>/best-known.csv)",
+            "  --fleet file|best     vehicles from the file, or from best known when listed (default best)",
+            "  --generations G       GA generation cap (default 200)",
+            "  --population P        GA population (default 40)",
+            "  --time-budget-ms T    GA wall-clock budget, 0 = none (default 0)",
+            "  --stall S             GA stall limit in generations, 0 = none (default 0)",
+            "  --batch B             CNET items per announcement (default " + ContractNet.DEFAULT_BATCH + ")",
+            "  --format csv|json     output format (default csv)",
+            "  --out FILE            results to FILE instead of stdout");
+
+    /** One instance x technique x seed. */
+    public static final class Row {
+        public String instance;
+        public int customers;
+        public String technique;
+        public long seed;
+        public int vehicles;
+        public int capacity;
+        public int horizon;
+        public int serviceTime;
+        public int delivered;
+        public double deliveryRate;
+        public double totalDistance;
+        public long solveMs;
+        public boolean feasible;             // Solomon rules: service times, due dates, return by horizon
+        public boolean feasibleNoService;    // the solvers' own model (BatchRunner's check)
+        public int generations;        // GA only
+        public String stopReason;      // GA only
+        public Integer bestVehicles;   // null when not known
+        public Double bestDistance;
+        public Double gapPercent;      // null unless feasible, all delivered and best known
+    }
+
+    private VrptwBenchmark() {}
+
+    public static void main(String[] args) {
+        List<String> techniques = Arrays.asList("GREEDY", "GA", "CLUSTER", "CNET");
+        List<String> inputs = new ArrayList<>();
+        String bestKnown = null;
+        boolean fleetFromBest = true;
+        BatchRunner.Options base = new BatchRunner.Options();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String a = args[i];
+                if (!a.startsWith("--")) {
+                    inputs.add(a);
+                    continue;
+                }
+                if (i + 1 >= args.length) throw new IllegalArgumentException("Missing value for " + a);
+                String val = args[++i].trim();
+                switch (a) {
+                    case "--techniques":
+                        techniques = Arrays.stream(val.split(","))
+                                .map(s -> s.trim().toUpperCase()).filter(s -> !s.isEmpty())
+                                .collect(Collectors.toList());
+                        break;
+                    case "--best-known": bestKnown = val; break;
+                    case "--fleet": fleetFromBest = !"file".equalsIgnoreCase(val); break;
+                    case "--seeds": base.runs = Integer.parseInt(val); break;
+                    default:
+                        // solver options are shared with BatchRunner
+                        BatchRunner.Options parsed = BatchRunner.parse(new String[]{a, val, "-"});
+                        copySolverOptions(parsed, a, base);
+                        break;
+                }
+            }
+            if (inputs.isEmpty()) throw new IllegalArgumentException("No instance file or directory given.");
+            for (String t : techniques) {
+                BatchRunner.parse(new String[]{"--technique", t, "-"});   // rejects unknown ones
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        try {
+            List<Path> files = instanceFiles(inputs);
+            Map<String, double[]> best = loadBestKnown(bestKnown, inputs);
+            System.err.printf("VrptwBenchmark: %d instances, techniques %s, seeds %d..%d, %d cores, Java %s%n",
+                    files.size(), techniques, base.seed, base.seed + base.runs - 1,
+                    Runtime.getRuntime().availableProcessors(), System.getProperty("java.version"));
+
+            List<Row> rows = new ArrayList<>();
+            for (Path f : files) {
+                rows.addAll(runInstance(f, techniques, base, fleetFromBest, best));
+            }
+            write(base, rows);
+        } catch (Exception e) {
+            System.err.println("VrptwBenchmark: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // --- Running ---
+
+    static List<Row> runInstance(Path file, List<String> techniques, BatchRunner.Options base,
+                                 boolean fleetFromBest, Map<String, double[]> best) throws IOException {
+        VrptwInstance inst = ItemsParser.parseSolomon(file.toString());
+        double[] bk = best.get(key(inst.name));
+        if (bk == null) bk = best.get(key(baseName(file)));
+
+        ItemStore store = ItemStore.of(inst.customers);
+        DistanceOracle oracle = DistanceOracle.of(store);
+        Map<String, Integer> indexById = new HashMap<>();
+        for (int i = 0; i < inst.size(); i++) indexById.put(inst.customers.get(i).getId(), i);
+
+        BatchRunner.Options o = copyOf(base);
+        o.vehicles = (fleetFromBest && bk != null) ? (int) bk[0] : inst.vehicles;
+        o.capacity = inst.capacity;
+        o.maxDistance = inst.horizon;
+
+        List<Row> rows = new ArrayList<>();
+        for (String technique : techniques) {
+            o.technique = technique;
+            for (int r = 0; r < base.runs; r++) {
+                BatchRunner.Run run = BatchRunner.solve(o, store, oracle, base.seed + r);
+
+                Row row = new Row();
+                row.instance = inst.name;
+                row.customers = inst.size();
+                row.technique = technique;
+                row.seed = run.seed;
+                row.vehicles = o.vehicles;
+                row.capacity = o.capacity;
+                row.horizon = inst.horizon;
+                row.serviceTime = inst.maxServiceTime();
+                row.delivered = run.delivered;
+                row.deliveryRate = run.deliveryRate;
+                row.totalDistance = run.totalDistance;
+                row.solveMs = run.solveMs;
+                row.feasibleNoService = run.feasible;
+                row.feasible = run.feasible && withServiceTimes(inst, oracle, indexById, run.routes);
+                row.generations = run.generations;
+                row.stopReason = run.stopReason;
+                if (bk != null) {
+                    row.bestVehicles = (int) bk[0];
+                    row.bestDistance = bk[1];
+                    if (row.feasible && run.delivered == inst.size() && bk[1] > 0) {
+                        row.gapPercent = 100.0 * (run.totalDistance - bk[1]) / bk[1];
+                    }
+                }
+                rows.add(row);
+
+                System.err.printf("%s %s seed=%d: delivered %d/%d, distance %.1f%s, %d ms%n",
+                        inst.name, technique, row.seed, row.delivered, row.customers, row.totalDistance,
+                        (row.gapPercent == null) ? (row.feasible ? "" : ", infeasible with service times")
+                                : String.format(" (gap %+.1f%%)", row.gapPercent),
+                        row.solveMs);
+            }
+        }
+        return rows;
+    }
+
+    // Replays each route under the Solomon rules: service starts no earlier than the
+    // ready time and no later than the due date, takes the customer's service time,
+    // load stays within capacity and the vehicle is back at the depot by the horizon
+    static boolean withServiceTimes(VrptwInstance inst, DistanceOracle oracle,
+                                    Map<String, Integer> indexById, Map<String, List<String>> routes) {
+        for (List<String> ids : routes.values()) {
+            double t = 0.0;
+            int load = 0;
+            int prev = DistanceOracle.DEPOT;
+            for (String id : ids) {
+                Integer i = indexById.get(id);
+                if (i == null) return false;
+                Item it = inst.customers.get(i);
+                t = Math.max(t + oracle.dist(prev, i), it.getStartTime());
+                if (t > it.getEndTime() + 1e-9) return false;
+                t += inst.serviceTime(i);
+                load += it.getDemand();
+                prev = i;
+            }
+            if (load > inst.capacity) return false;
+            if (!ids.isEmpty() && t + oracle.depot(prev) > inst.horizon + 1e-9) return false;
+        }
+        return true;
+    }
+
+    // Instance files in the given order; directories contribute their *.txt files by name
+    static List<Path> instanceFiles(List<String> inputs) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String in : inputs) {
+            Path p = Paths.get(in);
+            if (!Files.isDirectory(p)) {
+                files.add(p);
+                continue;
+            }
+            try (Stream<Path> s = Files.list(p)) {
+                s.filter(f -> f.getFileName().toString().toLowerCase().endsWith(".txt"))
+                        .sorted()
+                        .filter(f -> {
+                            if (ItemsParser.isSolomon(f.toString())) return true;
+                            System.err.println("VrptwBenchmark: skipping " + f + " (not a Solomon instance)");
+                            return false;
+                        })
+                        .forEach(files::add);
+            }
+        }
+        return files;
+    }
+
+    // name -> {vehicles, distance}
+    static Map<String, double[]> loadBestKnown(String path, List<String> inputs) throws IOException {
+        Path file = null;
+        if (path != null) {
+            file = Paths.get(path);
+        } else {
+            for (String in : inputs) {
+                Path dir = Files.isDirectory(Paths.get(in)) ? Paths.get(in) : Paths.get(in).toAbsolutePath().getParent();
+                if (dir != null && Files.exists(dir.resolve("best-known.csv"))) {
+                    file = dir.resolve("best-known.csv");
+                    break;
+                }
+            }
+        }
+
+        Map<String, double[]> best = new HashMap<>();
+        if (file == null) return best;
+        int ln = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            ln++;
+            String t = line.trim();
+            if (t.isEmpty() || t.startsWith("#")) continue;
+            String[] p = t.split("[,;\\s]+");
+            if (p.length < 3) throw new IllegalArgumentException(file + " line " + ln + " invalid: " + t);
+            try {
+                best.put(key(p[0]), new double[]{Double.parseDouble(p[1]), Double.parseDouble(p[2])});
+            } catch (NumberFormatException e) {
+                if (ln == 1) continue;   // header row
+                throw new IllegalArgumentException(file + " line " + ln + " invalid: " + t);
+            }
+        }
+        System.err.println("VrptwBenchmark: " + best.size() + " best known values from " + file);
+        return best;
+    }
+
+    // --- Output ---
+
+    static void write(BatchRunner.Options o, List<Row> rows) throws IOException {
+        try (Writer w = (o.out == null)
+                ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                : Files.newBufferedWriter(Paths.get(o.out), StandardCharsets.UTF_8)) {
+            PrintWriter pw = new PrintWriter(w);
+            if ("json".equals(o.format)) {
+                new GsonBuilder().setPrettyPrinting().create().toJson(rows, pw);
+                pw.println();
+            } else {
+                pw.println("instance,customers,technique,seed,vehicles,capacity,horizon,serviceTime,delivered," +
+                        "deliveryRate,totalDistance,solveMs,feasible,feasibleNoService,generations,stopReason," +
+                        "bestVehicles,bestDistance,gapPercent");
+                for (Row r : rows) {
+                    pw.println(String.join(",",
+                            r.instance, String.valueOf(r.customers), r.technique, String.valueOf(r.seed),
+                            String.valueOf(r.vehicles), String.valueOf(r.capacity), String.valueOf(r.horizon),
+                            String.valueOf(r.serviceTime), String.valueOf(r.delivered),
+                            String.format(Locale.ROOT, "%.4f", r.deliveryRate),
+                            String.format(Locale.ROOT, "%.2f", r.totalDistance),
+                            String.valueOf(r.solveMs), String.valueOf(r.feasible), String.valueOf(r.feasibleNoService),
+                            (r.stopReason == null) ? "" : String.valueOf(r.generations),
+                            (r.stopReason == null) ? "" : r.stopReason,
+                            (r.bestVehicles == null) ? "" : String.valueOf(r.bestVehicles),
+                            (r.bestDistance == null) ? "" : String.format(Locale.ROOT, "%.2f", r.bestDistance),
+                            (r.gapPercent == null) ? "" : String.format(Locale.ROOT, "%.2f", r.gapPercent)));
+                }
+            }
+            pw.flush();
+        }
+    }
+
+    // --- Small helpers ---
+
+    private static void copySolverOptions(BatchRunner.Options from, String option, BatchRunner.Options to) {
+        switch (option) {
+            case "--seed": to.seed = from.seed; break;
+            case "--generations": to.generations = from.generations; break;
+            case "--population": to.population = from.population; break;
+            case "--time-budget-ms": to.timeBudgetMs = from.timeBudgetMs; break;
+            case "--stall": to.stallGenerations = from.stallGenerations; break;
+            case "--batch": to.batch = from.batch; break;
+            case "--format": to.format = from.format; break;
+            case "--out": to.out = from.out; break;
+            default: throw new IllegalArgumentException("Unknown option " + option);
+        }
+    }
+
+    private static BatchRunner.Options copyOf(BatchRunner.Options b) {
+        BatchRunner.Options o = new BatchRunner.Options();
+        o.seed = b.seed;
+        o.runs = b.runs;
+        o.generations = b.generations;
+        o.population = b.population;
+        o.timeBudgetMs = b.timeBudgetMs;
+        o.stallGenerations = b.stallGenerations;
+        o.batch = b.batch;
+        o.format = b.format;
+        o.out = b.out;
+        return o;
+    }
+
+    private static String baseName(Path file) {
+        String n = file.getFileName().toString();
+        int dot = n.lastIndexOf('.');
+        return (dot > 0) ? n.substring(0, dot) : n;
+    }
+
+    private static String key(String name) {
+        return name.trim().toLowerCase();
+    }
+}
@@ -0,0 +1,68 @@
+package vrp;
+
+import java.util.List;
+
+/**
+ * A Solomon / Gehring–Homberger VRPTW instance as read by
+ * {@link ItemsParser#parseSolomon(String)}.
+ *
+ * The optimizers put the depot at (0,0), so customers are stored translated by
+ * the depot's coordinates; distances are unchanged. Time windows become the
+ * items' start/end (ready time rounded up, due date rounded down), and the
+ * depot's due date is the planning horizon.
+ *
+ * Item has no service time, so service times are kept here, per customer:
+ * the optimizers plan without them, and VrptwBenchmark replays their routes
+ * with them to check the instance's time windows and horizon.
+ */
+public final class VrptwInstance {
+
+    public final String name;
+    public final int vehicles;         // fleet size given in the file
+    public final int capacity;
+    public final double depotX;        // original depot coordinates
+    public final double depotY;
+    public final int horizon;          // depot due date
+    public final List<Item> customers; // translated, in file order
+    private final int[] serviceTime;
+
+    VrptwInstance(String name, int vehicles, int capacity, double depotX, double depotY,
+                  int horizon, List<Item> customers, int[] serviceTime) {
+        this.name = name;
+        this.vehicles = vehicles;
+        this.capacity = capacity;
+        this.depotX = depotX;
+        this.depotY = depotY;
+        this.horizon = horizon;
+        this.customers = customers;
+        this.serviceTime = serviceTime;
+    }
+
+    public int size() {
+        return customers.size();
+    }
+
+    /** Service time of customer i (position in customers). */
+    public int serviceTime(int i) {
+        return serviceTime[i];
+    }
+
+    /** Largest customer service time (the standard sets use one value per instance). */
+    public int maxServiceTime() {
+        int max = 0;
+        for (int s : serviceTime) max = Math.max(max, s);
+        return max;
+    }
+
+    public int totalDemand() {
+        int d = 0;
+        for (Item it : customers) d += it.getDemand();
+        return d;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s(%d customers, %d x cap %d, horizon %d)",
+                name, customers.size(), vehicles, capacity, horizon);
+    }
+}